@@ -40,7 +40,7 @@ public class SecurityConfig {
                                 // User Management
                                 .antMatchers("/admin/users/**").hasRole("ADMIN")
                                 // Modification Endpoints (Create/Update/Delete)
-                                .antMatchers("/admin/facilities/delete/**", "/admin/facilities/update/**", "/admin/facilities/save").hasRole("ADMIN")
+                                .antMatchers("/admin/facilities/delete/**", "/admin/facilities/update/**", "/admin/facilities/save", "/admin/facilities/import").hasRole("ADMIN")
                                 .antMatchers("/admin/assets/delete/**", "/admin/assets/update/**", "/admin/assets/save").hasRole("ADMIN")
                                 .antMatchers("/admin/cpu-specs/delete/**", "/admin/cpu-specs/update/**", "/admin/cpu-specs/save").hasRole("ADMIN")
                                 .antMatchers("/admin/counties/delete/**", "/admin/counties/update/**", "/admin/counties/save").hasRole("ADMIN")
@@ -1,6 +1,7 @@
 package org.utj.asman.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -12,5 +13,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
-    // Configuration can be added here as needed
+
+    // Streamed PDF downloads render on an async thread; the container's 30s default would cut off bulk documents
+    private static final long ASYNC_REQUEST_TIMEOUT_MS = 10 * 60 * 1000L;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(ASYNC_REQUEST_TIMEOUT_MS);
+    }
 }
\ No newline at end of file
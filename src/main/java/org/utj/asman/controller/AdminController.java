@@ -1,16 +1,24 @@
 package org.utj.asman.controller;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.utj.asman.dto.AssetRollupDto;
+import org.utj.asman.dto.AssetRowDto;
+import org.utj.asman.dto.DataTablePageDto;
+import org.utj.asman.dto.UserRowDto;
 import org.utj.asman.model.AssetRecord;
 import org.utj.asman.model.CpuSpecification;
 import org.utj.asman.model.Facility;
 import org.utj.asman.model.User;
+import org.utj.asman.service.AssetRollupService;
 import org.utj.asman.service.AssetService;
 import org.utj.asman.service.CpuSpecificationService;
 import org.utj.asman.service.PdfService;
+import org.utj.asman.service.StatisticsService;
 import org.utj.asman.service.UserService;
+import org.utj.asman.util.DataTableRequest;
+import org.utj.asman.util.PdfRenderingEngine;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,13 +26,18 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
+    // Groups per dimension shown on the reports page
+    private static final int REPORT_TOP_GROUPS = 10;
+
     @Autowired
     private UserService userService;
 
@@ -37,15 +50,22 @@ public class AdminController {
     @Autowired
     private CpuSpecificationService cpuSpecService;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private AssetRollupService rollupService;
+
     // --- DASHBOARD ---
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         model.addAttribute("page", "dashboard");
 
-        long userCount = userService.findAll().size();
-        long facilityCount = assetService.getAllFacilities().size();
-        long assetCount = assetService.getAssetRecords(null).size();
+        // Served from in-memory counters - no table scans per dashboard hit
+        long userCount = statisticsService.getUserCount();
+        long facilityCount = statisticsService.getFacilityCount();
+        long assetCount = statisticsService.getAssetCount();
 
         model.addAttribute("userCount", userCount);
         model.addAttribute("facilityCount", facilityCount);
@@ -59,11 +79,24 @@ public class AdminController {
     @GetMapping("/users")
     public String users(Model model) {
         model.addAttribute("page", "users");
-        model.addAttribute("users", userService.findAll());
         model.addAttribute("newUser", new User());
         return "admin/user_list";
     }
 
+    /**
+     * Rows of the user table, loaded page by page by DataTables.
+     */
+    @GetMapping("/users/table")
+    @ResponseBody
+    public ResponseEntity<?> userTable(@RequestParam Map<String, String> params) {
+        try {
+            DataTablePageDto<UserRowDto> page = userService.getUserTable(DataTableRequest.from(params));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/users/save")
     public String saveUser(@ModelAttribute User user) {
         try {
@@ -86,11 +119,22 @@ public class AdminController {
     public String reports(Model model) {
         model.addAttribute("page", "reports");
         model.addAttribute("facilities", assetService.getAllFacilities());
+        model.addAttribute("rollup", rollupService.getRollup(REPORT_TOP_GROUPS));
         return "admin/reports";
     }
 
+    /**
+     * Asset counts by facility, county, CPU spec, manufacturer and allocation month as JSON
+     * GET /admin/reports/rollup?top=20 (top limits each dimension, largest groups first; omit for all)
+     */
+    @GetMapping("/reports/rollup")
+    @ResponseBody
+    public ResponseEntity<AssetRollupDto> reportRollup(@RequestParam(required = false) Integer top) {
+        return ResponseEntity.ok(rollupService.getRollup(top));
+    }
+
     @GetMapping("/export/pdf/{facilityId}")
-    public ResponseEntity<ByteArrayResource> exportPdf(@PathVariable Long facilityId) {
+    public ResponseEntity<StreamingResponseBody> exportPdf(@PathVariable Long facilityId) {
         try {
             Optional<Facility> facilityOpt = assetService.getAllFacilities().stream()
                     .filter(f -> f.getId().equals(facilityId))
@@ -101,15 +145,22 @@ public class AdminController {
             }
 
             List<AssetRecord> assets = assetService.getAssetRecords(facilityId);
-            byte[] pdfBytes = pdfService.generateAssignmentFormsPdf(facilityOpt.get(), assets).toByteArray();
-            ByteArrayResource resource = new ByteArrayResource(pdfBytes);
+            PdfRenderingEngine.PdfWriter pdf = pdfService.prepareAssignmentFormsPdf(facilityOpt.get(), assets);
+
+            // Rendered straight into the response; the length is unknown up front, so it is sent chunked
+            StreamingResponseBody body = out -> {
+                try {
+                    pdf.write(out);
+                } catch (Exception e) {
+                    throw new IOException("Error generating PDF", e);
+                }
+            };
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment;filename=Assignment_Form_" + facilityOpt.get().getMflCode() + ".pdf")
                     .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(pdfBytes.length)
-                    .body(resource);
+                    .body(body);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -122,11 +173,24 @@ public class AdminController {
     @GetMapping("/cpu-specs")
     public String listCpuSpecs(Model model) {
         model.addAttribute("page", "cpu-specs");
-        model.addAttribute("specs", cpuSpecService.getAllCpuSpecs());
         model.addAttribute("newSpec", new CpuSpecification());
         return "admin/cpu_spec_list";
     }
 
+    /**
+     * Rows of the specification table, loaded page by page by DataTables.
+     */
+    @GetMapping("/cpu-specs/table")
+    @ResponseBody
+    public ResponseEntity<?> cpuSpecTable(@RequestParam Map<String, String> params) {
+        try {
+            DataTablePageDto<CpuSpecification> page = cpuSpecService.getSpecTable(DataTableRequest.from(params));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/cpu-specs/save")
     @ResponseBody
     public ResponseEntity<?> saveCpuSpec(@ModelAttribute CpuSpecification spec) {
@@ -168,11 +232,27 @@ public class AdminController {
 
     @GetMapping("/assets")
     public String listAssets(@RequestParam(required = false) Long facilityId, Model model) {
-        model.addAttribute("assets", assetService.getAssetRecords(facilityId));
+        // Rows are loaded on demand from /admin/assets/table
+        model.addAttribute("selectedFacilityId", facilityId);
         model.addAttribute("facilities", assetService.getAllFacilities());
         return "admin/asset_management";
     }
 
+    /**
+     * Rows of the asset table, loaded page by page by DataTables.
+     */
+    @GetMapping("/assets/table")
+    @ResponseBody
+    public ResponseEntity<?> assetTable(@RequestParam(required = false) Long facilityId,
+                                        @RequestParam Map<String, String> params) {
+        try {
+            DataTablePageDto<AssetRowDto> page = assetService.getAssetTable(DataTableRequest.from(params), facilityId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
         @PostMapping("/assets/delete/{id}")
     @ResponseBody
     public ResponseEntity<?> deleteAsset(@PathVariable Long id) {
@@ -1,14 +1,35 @@
 package org.utj.asman.controller;
 
 import org.utj.asman.dto.AssetEntryDTO;
+import org.utj.asman.dto.AssetImportResultDto;
+import org.utj.asman.dto.AssetSearchResultDto;
+import org.utj.asman.dto.AssetTransferRequestDto;
+import org.utj.asman.dto.ChangesDto;
+import org.utj.asman.dto.SerialLookupRequestDto;
 import org.utj.asman.model.AssetRecord;
-import org.utj.asman.model.CpuSpecification;
-import org.utj.asman.model.Facility;
+import org.utj.asman.service.AssetExportService;
+import org.utj.asman.service.AssetImportService;
+import org.utj.asman.service.AssetSearchService;
 import org.utj.asman.service.AssetService;
+import org.utj.asman.service.ChangeJournalService;
+import org.utj.asman.service.IdempotencyService;
+import org.utj.asman.service.OfflineSnapshotService;
+import org.utj.asman.service.ReferenceDataService;
+import org.utj.asman.service.SerialRegistryService;
+import org.utj.asman.service.ReferenceDataService.Catalog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,46 +40,141 @@ public class AssetController {
     @Autowired
     private AssetService assetService;
 
+    @Autowired
+    private AssetImportService assetImportService;
+
+    @Autowired
+    private AssetSearchService assetSearchService;
+
+    @Autowired
+    private AssetExportService assetExportService;
+
+    @Autowired
+    private ChangeJournalService changeJournalService;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private SerialRegistryService serialRegistryService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OfflineSnapshotService offlineSnapshotService;
+
     // --- CONFIGURATION ENDPOINTS (For App Dropdowns) ---
 
     /**
      * URL: GET /api/v1/facilities
      * Returns the list of facilities for the "Select Facility" dropdown.
+     * Supports If-None-Match: unchanged lists are answered with 304 Not Modified.
      */
     @GetMapping("/facilities")
-    public ResponseEntity<List<Facility>> getFacilities() {
-        return ResponseEntity.ok(assetService.getAllFacilities());
+    public ResponseEntity<byte[]> getFacilities(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return referenceData(Catalog.FACILITIES, ifNoneMatch);
     }
 
     /**
      * URL: GET /api/v1/cpu-specs
      * Returns the list of CPU Specifications for the "CPU Model" dropdown.
+     * Supports If-None-Match: unchanged lists are answered with 304 Not Modified.
      */
     @GetMapping("/cpu-specs")
-    public ResponseEntity<List<CpuSpecification>> getCpuSpecs() {
-        return ResponseEntity.ok(assetService.getAllCpuSpecs());
+    public ResponseEntity<byte[]> getCpuSpecs(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return referenceData(Catalog.CPU_SPECS, ifNoneMatch);
+    }
+
+    // Serves a cached reference-data payload; the 304 path needs neither the database nor Jackson
+    private ResponseEntity<byte[]> referenceData(Catalog catalog, String ifNoneMatch) {
+        if (referenceDataService.isNotModified(catalog, ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(referenceDataService.currentETag(catalog))
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        ReferenceDataService.Snapshot snapshot = referenceDataService.getSnapshot(catalog);
+        return ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
+    }
+
+    /**
+     * URL: GET /api/v1/snapshot
+     * Counties, facilities and CPU specs for offline use, as a gzip-compressed binary file
+     * (format described in OfflineSnapshotService). The ETag is the SHA-256 of the file;
+     * clients sending it back in If-None-Match get 304 while nothing has changed.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<Resource> getSnapshot(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
+        OfflineSnapshotService.Snapshot snapshot = offlineSnapshotService.getSnapshot();
+        if (ReferenceDataService.matchesIfNoneMatch(ifNoneMatch, snapshot.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getETag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .cacheControl(CacheControl.noCache())
+                .header("X-Snapshot-Format", String.valueOf(OfflineSnapshotService.FORMAT_VERSION))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(snapshot.getSize())
+                .body(new FileSystemResource(snapshot.getFile()));
+    }
+
+    /**
+     * URL: GET /api/v1/changes?since=0&limit=500
+     * Delta sync: facilities, CPU specs and assets inserted, updated or deleted since the
+     * client's last version. Pass the returned 'version' as 'since' next time and repeat
+     * while 'hasMore' is true. since=0 returns everything.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ChangesDto> getChanges(@RequestParam(required = false) Long since,
+                                                 @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(changeJournalService.getChanges(since, limit));
     }
 
     // --- ASSET CRUD ENDPOINTS ---
 
     /**
-     * URL: GET /api/v1/assets?facilityId=1
+     * URL: GET /api/v1/assets?facilityId=1&limit=100&after=0
      * Returns assets, optionally filtered by facility.
+     *
+     * When 'limit' or 'after' is supplied, returns a keyset-paginated page of lightweight
+     * asset summaries. Pass the returned 'nextCursor' as 'after' to get the next page.
+     * Without either parameter the legacy full list is returned for older app versions.
      */
     @GetMapping("/assets")
-    public ResponseEntity<List<AssetRecord>> getAssets(@RequestParam(required = false) Long facilityId) {
+    public ResponseEntity<?> getAssets(@RequestParam(required = false) Long facilityId,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) Long after) {
+        if (limit != null || after != null) {
+            return ResponseEntity.ok(assetService.getAssetPage(facilityId, after, limit));
+        }
         return ResponseEntity.ok(assetService.getAssetRecords(facilityId));
     }
 
     /**
      * URL: POST /api/v1/assets
      * Receives scanned data from the Android app.
+     * With an Idempotency-Key header, retries of the same request return the originally
+     * created asset instead of creating (or failing on) a duplicate.
      */
     @PostMapping("/assets")
-    public ResponseEntity<?> createAsset(@RequestBody AssetEntryDTO assetEntryDTO) {
+    public ResponseEntity<?> createAsset(@RequestBody AssetEntryDTO assetEntryDTO,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            AssetRecord savedRecord = assetService.saveAsset(assetEntryDTO);
+            AssetRecord savedRecord = idempotencyKey != null
+                    ? idempotencyService.createAsset(idempotencyKey, assetEntryDTO)
+                    : assetService.saveAsset(assetEntryDTO);
             return ResponseEntity.ok(savedRecord);
+        } catch (IllegalStateException e) {
+            // Key reused for a different request, or its asset is gone
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalArgumentException e) {
             // Return 400 for Validation Errors (e.g., Duplicate Serial)
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -69,6 +185,40 @@ public class AssetController {
         }
     }
 
+    /**
+     * URL: GET /api/v1/assets/export
+     * Streams the full inventory as newline-delimited JSON (one asset summary per line)
+     * for reporting tools. Memory use stays flat regardless of the number of assets.
+     */
+    @GetMapping("/assets/export")
+    public void exportAssets(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=assets.ndjson");
+        assetExportService.exportNdjson(response.getOutputStream());
+    }
+
+    /**
+     * URL: POST /api/v1/assets/import
+     * Bulk import from a CSV (Content-Type: text/csv) or JSON lines
+     * (Content-Type: application/x-ndjson) request body.
+     * The body is streamed - it is never fully loaded into memory.
+     * Returns counts plus an error entry for every rejected row.
+     */
+    @PostMapping(value = "/assets/import", consumes = { "text/csv", "application/x-ndjson", "application/jsonl" })
+    public ResponseEntity<?> importAssets(HttpServletRequest request) {
+        try {
+            String contentType = request.getContentType();
+            AssetImportResultDto result = contentType != null && contentType.contains("csv")
+                    ? assetImportService.importCsv(request.getInputStream())
+                    : assetImportService.importJsonLines(request.getInputStream());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Import Error: " + e.getMessage());
+        }
+    }
+
     /**
      * URL: PUT /api/v1/assets/{id}
      * Updates an existing asset.
@@ -86,8 +236,55 @@ public class AssetController {
         }
     }
 
+    /**
+     * URL: POST /api/v1/assets/transfer
+     * Moves many assets to another facility in one operation, e.g. when a facility closes.
+     * Body: {"assetIds": [1, 2, 3], "targetFacilityId": 7} or {"sourceFacilityId": 4, "targetFacilityId": 7}
+     */
+    @PostMapping("/assets/transfer")
+    public ResponseEntity<?> transferAssets(@RequestBody AssetTransferRequestDto request) {
+        try {
+            return ResponseEntity.ok(assetService.transferAssets(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Server Error: " + e.getMessage());
+        }
+    }
+
     // --- HELPER ENDPOINTS ---
 
+    /**
+     * URL: POST /api/v1/serials/lookup
+     * Checks a whole scanning session at once. Body: {"serials": ["ABC123", "MON-77", ...]}
+     * Returns, per serial, whether it is in use and by which asset, facility and component.
+     */
+    @PostMapping("/serials/lookup")
+    public ResponseEntity<?> lookupSerials(@RequestBody SerialLookupRequestDto request) {
+        if (request.getSerials() == null || request.getSerials().isEmpty()) {
+            return ResponseEntity.badRequest().body("serials is required");
+        }
+        try {
+            return ResponseEntity.ok(serialRegistryService.lookup(request.getSerials()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * URL: GET /api/v1/assets/search?q=hp&page=0&size=20
+     * Global search by CPU/Monitor/UPS serial, facility name, MFL code or CPU model.
+     * Results are ranked (exact > prefix > substring match) and paginated.
+     */
+    @GetMapping("/assets/search")
+    public ResponseEntity<AssetSearchResultDto> searchAssets(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(assetSearchService.search(q, page, size));
+    }
+
     /**
      * URL: GET /api/v1/models/suggest?type=monitor&query=dell
      * Auto-complete for Monitor and UPS models.
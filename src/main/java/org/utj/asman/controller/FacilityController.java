@@ -1,19 +1,25 @@
 package org.utj.asman.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.utj.asman.dto.DataTablePageDto;
 import org.utj.asman.dto.FacilityDto;
+import org.utj.asman.dto.FacilityImportResultDto;
 import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.service.FacilityImportService;
 import org.utj.asman.service.FacilityService;
 import org.utj.asman.service.CountyService;
+import org.utj.asman.util.DataTableRequest;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin/facilities")
@@ -25,15 +31,15 @@ public class FacilityController {
     @Autowired
     private CountyService countyService;
 
+    @Autowired
+    private FacilityImportService facilityImportService;
+
     /**
      * Display facility list page
      */
     @GetMapping
     public String listFacilities(Model model) {
-        // Load facilities as DTOs with null-safe handling
-        List<FacilityResponseDto> facilities = facilityService.getAllFacilitiesDto();
-        
-        model.addAttribute("facilities", facilities);
+        // Rows are loaded on demand from /admin/facilities/table
         model.addAttribute("counties", countyService.getAllCounties());
         model.addAttribute("newFacility", new FacilityDto());
         
@@ -52,7 +58,6 @@ public class FacilityController {
             Model model) {
         
         if (result.hasErrors()) {
-            model.addAttribute("facilities", facilityService.getAllFacilitiesDto());
             model.addAttribute("counties", countyService.getAllCounties());
             return "admin/facility_list";
         }
@@ -84,6 +89,71 @@ public class FacilityController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Search facilities as JSON, paginated and sorted in the database
+     * GET /admin/facilities/search?q=kenya&countyId=1&page=0&size=20&sort=name&desc=false
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public ResponseEntity<?> searchFacilities(@RequestParam(value = "q", required = false) String query,
+                                              @RequestParam(required = false) Long countyId,
+                                              @RequestParam(required = false) Integer page,
+                                              @RequestParam(required = false) Integer size,
+                                              @RequestParam(required = false) String sort,
+                                              @RequestParam(defaultValue = "false") boolean desc) {
+        try {
+            Page<FacilityResponseDto> result = facilityService.searchFacilities(query, countyId, page, size, sort, desc);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Rows of the facility table in the DataTables server-side format, optionally within one county
+     * GET /admin/facilities/table?draw=1&start=0&length=25&search[value]=kenya&countyId=1
+     */
+    @GetMapping("/table")
+    @ResponseBody
+    public ResponseEntity<?> facilityTable(@RequestParam(required = false) Long countyId,
+                                           @RequestParam Map<String, String> params) {
+        try {
+            DataTablePageDto<FacilityResponseDto> page =
+                    facilityService.getFacilityTable(DataTableRequest.from(params), countyId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Import the facility master list from CSV, upserting by MFL code
+     * POST /admin/facilities/import with the raw CSV file as body (Content-Type: text/csv)
+     * Columns: mflCode, facilityName, countyCode or county
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @ResponseBody
+    public ResponseEntity<?> importFacilities(HttpServletRequest request) {
+        try {
+            FacilityImportResultDto result = facilityImportService.importCsv(request.getInputStream());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Import Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Facility DTO cache metrics as JSON (hits, misses, evictions, sizes)
+     */
+    @GetMapping("/cache-stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(facilityService.getDtoCacheStats());
+    }
+
     /**
      * Delete facility
      */
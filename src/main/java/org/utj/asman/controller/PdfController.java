@@ -3,20 +3,33 @@ package org.utj.asman.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.dto.PdfJobDto;
 import org.utj.asman.model.AssetRecord;
 import org.utj.asman.repository.AssetRecordRepository;
 import org.utj.asman.service.EnhancedPdfService;
 import org.utj.asman.service.FacilityService;
+import org.utj.asman.service.PdfCacheService;
+import org.utj.asman.service.PdfJobService;
+import org.utj.asman.util.PdfRenderingEngine;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin/pdf")
@@ -33,6 +46,12 @@ public class PdfController {
     @Autowired
     private AssetRecordRepository assetRecordRepository;
 
+    @Autowired
+    private PdfCacheService pdfCache;
+
+    @Autowired
+    private PdfJobService pdfJobService;
+
     /**
      * Generate Receipt PDF for a facility
      * GET /admin/pdf/receipt/{facilityId}
@@ -40,7 +59,7 @@ public class PdfController {
      * FIXED: Now uses facilityId directly to avoid lazy initialization issues
      */
     @GetMapping("/receipt/{facilityId}")
-    public ResponseEntity<byte[]> generateReceipt(@PathVariable Long facilityId) {
+    public ResponseEntity<Resource> generateReceipt(@PathVariable Long facilityId) {
         try {
             log.info("Generating receipt PDF for facility: {}", facilityId);
             
@@ -49,30 +68,31 @@ public class PdfController {
                     .orElseThrow(() -> new RuntimeException("Facility not found with ID: " + facilityId));
             
             // Get assets for this facility
-            List<AssetRecord> assets = assetRecordRepository.findByFacilityId(facilityId);
+            List<AssetRecord> assets = assetRecordRepository.findWithRelationsByFacilityId(facilityId);
             
             if (assets.isEmpty()) {
                 log.warn("No assets found for facility: {}", facilityId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("No assets found for this facility".getBytes());
+                        .body(new ByteArrayResource("No assets found for this facility".getBytes()));
             }
             
-            // Generate PDF using facilityId (not entity) - uses DTO internally
-            ByteArrayOutputStream pdfStream = pdfService.generateReceiptPdf(facilityId, assets);
+            // Served from the PDF cache; rendered only when the facility, its assets or the settings changed
+            FileChannel pdf = pdfService.openReceiptPdf(facilityId, assets);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdf.size());
             headers.setContentDispositionFormData("attachment", 
                     "receipt_" + facility.getMflCode() + ".pdf");
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
             
             log.info("Successfully generated receipt PDF for facility: {}", facilityId);
-            return new ResponseEntity<byte[]>(pdfStream.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<Resource>(pdfResource(pdf), headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error generating receipt PDF for facility: {}", facilityId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error generating PDF: " + e.getMessage()).getBytes());
+                    .body(new ByteArrayResource(("Error generating PDF: " + e.getMessage()).getBytes()));
         }
     }
 
@@ -81,17 +101,19 @@ public class PdfController {
      * GET /admin/pdf/assignment/{assetId}
      */
     @GetMapping("/assignment/{assetId}")
-    public ResponseEntity<byte[]> generateAssignmentForm(@PathVariable Long assetId) {
+    public ResponseEntity<Resource> generateAssignmentForm(@PathVariable Long assetId) {
         try {
             log.info("Generating assignment form PDF for asset: {}", assetId);
             
-            AssetRecord asset = assetRecordRepository.findById(assetId)
+            AssetRecord asset = assetRecordRepository.findWithRelationsById(assetId)
                     .orElseThrow(() -> new RuntimeException("Asset not found with ID: " + assetId));
             
-            ByteArrayOutputStream pdfStream = pdfService.generateAssignmentFormPdf(asset);
+            // Served from the PDF cache; rendered only when the asset or the settings changed
+            FileChannel pdf = pdfService.openAssignmentFormPdf(asset);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdf.size());
             String filename = asset.getCpuSerial() != null && !asset.getCpuSerial().isEmpty()
                     ? "assignment_" + asset.getCpuSerial() + ".pdf"
                     : "assignment_" + assetId + ".pdf";
@@ -99,12 +121,12 @@ public class PdfController {
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
             
             log.info("Successfully generated assignment form PDF for asset: {}", assetId);
-            return new ResponseEntity<byte[]>(pdfStream.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<Resource>(pdfResource(pdf), headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error generating assignment form PDF for asset: {}", assetId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error generating PDF: " + e.getMessage()).getBytes());
+                    .body(new ByteArrayResource(("Error generating PDF: " + e.getMessage()).getBytes()));
         }
     }
 
@@ -113,7 +135,7 @@ public class PdfController {
      * GET /admin/pdf/assignment/facility/{facilityId}
      */
     @GetMapping("/assignment/facility/{facilityId}")
-    public ResponseEntity<byte[]> generateBulkAssignmentForms(@PathVariable Long facilityId) {
+    public ResponseEntity<StreamingResponseBody> generateBulkAssignmentForms(@PathVariable Long facilityId) {
         try {
             log.info("Generating bulk assignment forms for facility: {}", facilityId);
             
@@ -121,15 +143,16 @@ public class PdfController {
             FacilityResponseDto facility = facilityService.getFacilityDtoById(facilityId)
                     .orElseThrow(() -> new RuntimeException("Facility not found with ID: " + facilityId));
             
-            List<AssetRecord> assets = assetRecordRepository.findByFacilityId(facilityId);
+            List<AssetRecord> assets = assetRecordRepository.findWithRelationsByFacilityId(facilityId);
             
             if (assets.isEmpty()) {
                 log.warn("No assets found for facility: {}", facilityId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("No assets found for this facility".getBytes());
+                        .body(textBody("No assets found for this facility"));
             }
             
-            ByteArrayOutputStream pdfStream = pdfService.generateBulkAssignmentForms(assets);
+            // Forms are built here; the PDF is rendered straight into the response, never buffered whole
+            PdfRenderingEngine.PdfWriter pdf = pdfService.prepareBulkAssignmentForms(assets);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
@@ -137,13 +160,21 @@ public class PdfController {
                     "assignment_forms_" + facility.getMflCode() + ".pdf");
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
             
-            log.info("Successfully generated bulk assignment forms for facility: {}", facilityId);
-            return new ResponseEntity<byte[]>(pdfStream.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<StreamingResponseBody>(out -> {
+                try {
+                    pdf.write(out);
+                    log.info("Successfully generated bulk assignment forms for facility: {}", facilityId);
+                } catch (Exception e) {
+                    // Headers are already sent, so all that is left is to abort the download
+                    log.error("Error streaming bulk assignment forms for facility: {}", facilityId, e);
+                    throw new IOException("Error generating PDF", e);
+                }
+            }, headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error generating bulk assignment forms for facility: {}", facilityId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error generating PDF: " + e.getMessage()).getBytes());
+                    .body(textBody("Error generating PDF: " + e.getMessage()));
         }
     }
 
@@ -154,7 +185,7 @@ public class PdfController {
      * FIXED: Now uses facilityId directly to avoid lazy initialization issues
      */
     @GetMapping("/receipt/{facilityId}/preview")
-    public ResponseEntity<byte[]> previewReceipt(@PathVariable Long facilityId) {
+    public ResponseEntity<Resource> previewReceipt(@PathVariable Long facilityId) {
         try {
             log.info("Generating receipt preview for facility: {}", facilityId);
             
@@ -162,28 +193,29 @@ public class PdfController {
             facilityService.getFacilityDtoById(facilityId)
                     .orElseThrow(() -> new RuntimeException("Facility not found with ID: " + facilityId));
             
-            List<AssetRecord> assets = assetRecordRepository.findByFacilityId(facilityId);
+            List<AssetRecord> assets = assetRecordRepository.findWithRelationsByFacilityId(facilityId);
             
             if (assets.isEmpty()) {
                 log.warn("No assets found for facility: {}", facilityId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("No assets found for this facility".getBytes());
+                        .body(new ByteArrayResource("No assets found for this facility".getBytes()));
             }
             
-            // Generate PDF using facilityId (not entity) - uses DTO internally
-            ByteArrayOutputStream pdfStream = pdfService.generateReceiptPdf(facilityId, assets);
+            // Served from the PDF cache; rendered only when the facility, its assets or the settings changed
+            FileChannel pdf = pdfService.openReceiptPdf(facilityId, assets);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdf.size());
             headers.add("Content-Disposition", "inline; filename=receipt_preview.pdf");
             
             log.info("Successfully generated receipt preview for facility: {}", facilityId);
-            return new ResponseEntity<byte[]>(pdfStream.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<Resource>(pdfResource(pdf), headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error previewing receipt PDF for facility: {}", facilityId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error generating PDF: " + e.getMessage()).getBytes());
+                    .body(new ByteArrayResource(("Error generating PDF: " + e.getMessage()).getBytes()));
         }
     }
 
@@ -192,26 +224,111 @@ public class PdfController {
      * GET /admin/pdf/assignment/{assetId}/preview
      */
     @GetMapping("/assignment/{assetId}/preview")
-    public ResponseEntity<byte[]> previewAssignmentForm(@PathVariable Long assetId) {
+    public ResponseEntity<Resource> previewAssignmentForm(@PathVariable Long assetId) {
         try {
             log.info("Generating assignment form preview for asset: {}", assetId);
             
-            AssetRecord asset = assetRecordRepository.findById(assetId)
+            AssetRecord asset = assetRecordRepository.findWithRelationsById(assetId)
                     .orElseThrow(() -> new RuntimeException("Asset not found with ID: " + assetId));
             
-            ByteArrayOutputStream pdfStream = pdfService.generateAssignmentFormPdf(asset);
+            // Served from the PDF cache; rendered only when the asset or the settings changed
+            FileChannel pdf = pdfService.openAssignmentFormPdf(asset);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdf.size());
             headers.add("Content-Disposition", "inline; filename=assignment_preview.pdf");
             
             log.info("Successfully generated assignment form preview for asset: {}", assetId);
-            return new ResponseEntity<byte[]>(pdfStream.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<Resource>(pdfResource(pdf), headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error previewing assignment form PDF for asset: {}", assetId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error generating PDF: " + e.getMessage()).getBytes());
+                    .body(new ByteArrayResource(("Error generating PDF: " + e.getMessage()).getBytes()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Start rendering the bulk assignment forms of a facility in the background
+     * POST /admin/pdf/jobs/assignment/facility/{facilityId}
+     *
+     * Returns the job to poll; an identical job that is still running is returned instead of a new one.
+     */
+    @PostMapping("/jobs/assignment/facility/{facilityId}")
+    @ResponseBody
+    public ResponseEntity<PdfJobDto> submitBulkAssignmentFormsJob(@PathVariable Long facilityId) {
+        try {
+            return pdfJobService.submitBulkAssignmentForms(facilityId)
+                    .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            log.warn("Rejected bulk assignment forms job for facility {}: {}", facilityId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            log.error("Error submitting bulk assignment forms job for facility: {}", facilityId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Status and progress of a background PDF job
+     * GET /admin/pdf/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<PdfJobDto> getJob(@PathVariable String jobId) {
+        return pdfJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Download the result of a finished PDF job
+     * GET /admin/pdf/jobs/{jobId}/download
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable String jobId) {
+        PdfJobDto job = pdfJobService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!PdfJobService.Status.DONE.name().equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ByteArrayResource(("PDF job is " + job.getStatus()).getBytes()));
+        }
+
+        Path pdfFile;
+        try {
+            pdfFile = pdfJobService.getResultFile(jobId);
+        } catch (IllegalStateException e) {
+            // Expired between the status check and now
+            return ResponseEntity.notFound().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+        return new ResponseEntity<Resource>(new FileSystemResource(pdfFile), headers, HttpStatus.OK);
+    }
+
+    // Spring closes the stream, and with it the channel, once the body is written
+    private static Resource pdfResource(FileChannel pdf) {
+        return new InputStreamResource(Channels.newInputStream(pdf));
+    }
+
+    private static StreamingResponseBody textBody(String message) {
+        return out -> out.write(message.getBytes());
+    }
+
+    /**
+     * Size and hit rate of the PDF cache
+     * GET /admin/pdf/cache-stats
+     */
+    @GetMapping("/cache-stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(pdfCache.getStats());
+    }
+}
@@ -0,0 +1,21 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single rejected row of a bulk asset import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetImportErrorDto {
+
+    // 1-based line number in the uploaded file
+    private int line;
+
+    private String cpuSerial;
+
+    private String message;
+}
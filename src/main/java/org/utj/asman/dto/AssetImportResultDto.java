@@ -0,0 +1,26 @@
+package org.utj.asman.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk asset import.
+ * Every rejected row is reported with its line number and the reason.
+ */
+@Data
+@NoArgsConstructor
+public class AssetImportResultDto {
+
+    private int totalRows;
+    private int imported;
+    private int rejected;
+    private List<AssetImportErrorDto> errors = new ArrayList<AssetImportErrorDto>();
+
+    public void addError(int line, String cpuSerial, String message) {
+        errors.add(new AssetImportErrorDto(line, cpuSerial, message));
+        rejected++;
+    }
+}
@@ -0,0 +1,29 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Asset counts for the reports page, grouped by facility, county, CPU spec, manufacturer and allocation month.
+ * Groups are sorted by count (largest first), months chronologically.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetRollupDto {
+
+    private long totalAssets;
+
+    // False while the in-memory rollups are still warming up and the counts came straight from the database
+    private boolean live;
+
+    private List<RollupEntryDto> byFacility = new ArrayList<>();
+    private List<RollupEntryDto> byCounty = new ArrayList<>();
+    private List<RollupEntryDto> byCpuSpec = new ArrayList<>();
+    private List<RollupEntryDto> byManufacturer = new ArrayList<>();
+    private List<RollupEntryDto> byMonth = new ArrayList<>();
+}
@@ -0,0 +1,28 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the admin asset table, populated directly by a JPQL constructor expression.
+ *
+ * NOTE: The constructor argument order is used by AssetRecordRepository.TABLE_SELECT - keep them in sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetRowDto {
+
+    private Long id;
+    private Long facilityId;
+    private String facilityName;
+    private String cpuSerial;
+    private String cpuModel;
+    private String processor;
+    private String memory;
+    private String monitorModel;
+    private String monitorSerial;
+    private String upsModel;
+    private String upsSerial;
+}
@@ -0,0 +1,28 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked global asset search results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetSearchResultDto {
+
+    private String query;
+
+    // 0-based page index
+    private int page;
+
+    private int size;
+
+    // Total number of matching assets across all pages
+    private long total;
+
+    private List<AssetSummaryDto> hits;
+}
@@ -0,0 +1,42 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of an AssetRecord for list APIs.
+ * Populated directly by JPQL constructor expressions so no entities
+ * (and no Facility / CpuSpecification graphs) are loaded into the persistence context.
+ *
+ * NOTE: The constructor argument order is used by the repository queries - keep them in sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetSummaryDto {
+
+    private Long id;
+
+    // Facility
+    private Long facilityId;
+    private String facilityName;
+    private String mflCode;
+
+    // CPU Specification
+    private Long cpuSpecId;
+    private String cpuManufacturer;
+    private String cpuModel;
+
+    // Serials & models
+    private String cpuSerial;
+    private String monitorSerial;
+    private String monitorModel;
+    private String upsSerial;
+    private String upsModel;
+    private String assetTag;
+
+    private LocalDateTime allocationDate;
+}
@@ -0,0 +1,25 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Request body of POST /api/v1/assets/transfer.
+ * Give either the IDs of the assets to move or a source facility whose assets all move.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetTransferRequestDto {
+
+    private List<Long> assetIds;
+
+    private Long sourceFacilityId;
+
+    @NotNull(message = "Target facility ID is required")
+    private Long targetFacilityId;
+}
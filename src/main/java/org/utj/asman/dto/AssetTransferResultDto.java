@@ -0,0 +1,28 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk asset transfer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetTransferResultDto {
+
+    private Long targetFacilityId;
+
+    private int requested;
+    private int transferred;
+
+    // Assets that were already at the target facility (left untouched)
+    private int alreadyAtTarget;
+
+    // Requested IDs that do not exist
+    private List<Long> notFoundIds = new ArrayList<Long>();
+}
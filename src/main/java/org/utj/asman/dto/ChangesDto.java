@@ -0,0 +1,39 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.utj.asman.model.CpuSpecification;
+import org.utj.asman.model.Facility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the delta sync feed (GET /api/v1/changes).
+ * Contains the current state of everything inserted or updated since the client's version,
+ * and the IDs of everything deleted. Clients store {@code version} and pass it back as
+ * {@code since}, repeating while {@code hasMore} is true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDto {
+
+    // Version the client asked for
+    private long since;
+
+    // Version to pass as 'since' on the next call
+    private long version;
+
+    private boolean hasMore;
+
+    private List<AssetSummaryDto> assets = new ArrayList<AssetSummaryDto>();
+    private List<Facility> facilities = new ArrayList<Facility>();
+    private List<CpuSpecification> cpuSpecs = new ArrayList<CpuSpecification>();
+
+    // Tombstones
+    private List<Long> deletedAssetIds = new ArrayList<Long>();
+    private List<Long> deletedFacilityIds = new ArrayList<Long>();
+    private List<Long> deletedCpuSpecIds = new ArrayList<Long>();
+}
@@ -0,0 +1,27 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) paginated result.
+ * Clients pass {@code nextCursor} back as the {@code after} parameter
+ * to fetch the following page, until {@code hasMore} is false.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> items;
+
+    // Cursor of the last item on this page (null when the page is empty)
+    private Long nextCursor;
+
+    private boolean hasMore;
+
+    private int limit;
+}
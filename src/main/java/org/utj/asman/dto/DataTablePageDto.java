@@ -0,0 +1,27 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an admin table in the DataTables server-side response format.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataTablePageDto<T> {
+
+    // Echo of the request's draw counter, so the client can drop out-of-order responses
+    private int draw;
+
+    // Rows before the search box is applied (but after page filters such as facility or county)
+    private long recordsTotal;
+
+    // Rows matching the search box
+    private long recordsFiltered;
+
+    private List<T> data;
+}
@@ -0,0 +1,35 @@
+package org.utj.asman.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a facility master-list import.
+ * Every rejected row is counted; the first MAX_REPORTED_ERRORS are reported with line number and reason.
+ */
+@Data
+@NoArgsConstructor
+public class FacilityImportResultDto {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int totalRows;
+    private int inserted;
+    private int updated;
+
+    // Rows that matched an existing facility exactly - nothing was written
+    private int unchanged;
+
+    private int rejected;
+    private List<FacilityImportErrorDto> errors = new ArrayList<FacilityImportErrorDto>();
+
+    public void addError(int line, String mflCode, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new FacilityImportErrorDto(line, mflCode, message));
+        }
+        rejected++;
+    }
+}
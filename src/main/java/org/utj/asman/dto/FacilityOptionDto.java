@@ -0,0 +1,24 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Facility entry of the mobile "Select Facility" list (GET /api/v1/facilities).
+ * Same JSON fields as the Facility entity, populated directly by a JPQL constructor expression.
+ *
+ * NOTE: The constructor argument order is used by FacilityRepository.findAllOptions() - keep them in sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilityOptionDto {
+
+    private Long id;
+    private String facilityName;
+    private String mflCode;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,30 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat row of a facility and its county, populated directly by JPQL constructor expressions
+ * (no Facility entities or County proxies are loaded).
+ *
+ * NOTE: The constructor argument order is used by FacilityRepository.ROW_SELECT - keep them in sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilityRowDto {
+
+    private Long id;
+    private String facilityName;
+    private String mflCode;
+
+    // County (all null when the facility has no county)
+    private Long countyId;
+    private String countyName;
+    private String countyCode;
+
+    private LocalDateTime createdAt;
+}
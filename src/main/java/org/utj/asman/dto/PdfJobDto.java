@@ -0,0 +1,33 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of a background PDF job, as polled by the admin UI.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfJobDto {
+
+    private String id;
+    private Long facilityId;
+
+    // QUEUED, RUNNING, DONE or FAILED
+    private String status;
+
+    // Pages are known once layout has finished; until then pageCount is 0
+    private int pagesDone;
+    private int pageCount;
+    private int percent;
+
+    private String fileName;
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
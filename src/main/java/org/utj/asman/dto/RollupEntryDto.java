@@ -0,0 +1,25 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of an asset rollup: a group (facility, county, CPU spec, manufacturer or month) and its asset count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupEntryDto {
+
+    // Facility, county or CPU spec ID; null for manufacturers, months and the "not assigned" group
+    private Long id;
+
+    // Display name (facility name, county name, "manufacturer model", manufacturer or yyyy-MM)
+    private String label;
+
+    // MFL code or county code where the group has one
+    private String code;
+
+    private long count;
+}
@@ -0,0 +1,18 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of POST /api/v1/serials/lookup: the serials scanned in one session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerialLookupRequestDto {
+
+    private List<String> serials;
+}
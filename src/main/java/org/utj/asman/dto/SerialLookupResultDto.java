@@ -0,0 +1,32 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of looking up one scanned serial number.
+ * Only 'serial' and 'found' are set when the serial is not in use.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerialLookupResultDto {
+
+    private String serial;
+    private boolean found;
+
+    // CPU, MONITOR or UPS
+    private String component;
+
+    private Long assetId;
+    private Long facilityId;
+    private String facilityName;
+    private String mflCode;
+
+    public static SerialLookupResultDto notFound(String serial) {
+        SerialLookupResultDto dto = new SerialLookupResultDto();
+        dto.setSerial(serial);
+        return dto;
+    }
+}
@@ -0,0 +1,20 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Serial numbers of an existing asset that matched a set-based serial lookup.
+ * Populated by a JPQL constructor expression in AssetRecordRepository.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerialMatchDto {
+
+    private Long assetId;
+    private String cpuSerial;
+    private String monitorSerial;
+    private String upsSerial;
+}
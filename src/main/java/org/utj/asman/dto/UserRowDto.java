@@ -0,0 +1,22 @@
+package org.utj.asman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the admin user table. Never carries the password hash.
+ *
+ * NOTE: The constructor argument order is used by UserRepository.searchRows() - keep them in sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRowDto {
+
+    private Long id;
+    private String username;
+    private String name;
+    private String role;
+    private boolean enabled;
+}
@@ -0,0 +1,53 @@
+package org.utj.asman.event;
+
+import org.utj.asman.dto.AssetSummaryDto;
+
+/**
+ * Published by the asset write paths whenever an AssetRecord is created, updated or deleted.
+ * Carries flat snapshots of the record before and after the change, so listeners
+ * (in-memory indexes, counters, caches) never need to touch the database or lazy relations.
+ *
+ * Listeners should use @TransactionalEventListener so they only react once the change is committed.
+ */
+public class AssetChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    private final ChangeType type;
+    private final AssetSummaryDto before; // null for CREATED
+    private final AssetSummaryDto after;  // null for DELETED
+
+    public AssetChangedEvent(ChangeType type, AssetSummaryDto before, AssetSummaryDto after) {
+        this.type = type;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static AssetChangedEvent created(AssetSummaryDto after) {
+        return new AssetChangedEvent(ChangeType.CREATED, null, after);
+    }
+
+    public static AssetChangedEvent updated(AssetSummaryDto before, AssetSummaryDto after) {
+        return new AssetChangedEvent(ChangeType.UPDATED, before, after);
+    }
+
+    public static AssetChangedEvent deleted(AssetSummaryDto before) {
+        return new AssetChangedEvent(ChangeType.DELETED, before, null);
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public AssetSummaryDto getBefore() {
+        return before;
+    }
+
+    public AssetSummaryDto getAfter() {
+        return after;
+    }
+
+    public Long getAssetId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
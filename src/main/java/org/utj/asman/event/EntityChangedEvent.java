@@ -0,0 +1,77 @@
+package org.utj.asman.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when a reference entity (facility, CPU specification, county), a setting or a user is saved or deleted.
+ * Only identifies what changed - listeners reload whatever they need.
+ *
+ * Bulk operations publish one event for many entities of the same type (see getEntityIds()),
+ * so listeners that reload whole tables do so once per batch instead of once per row.
+ *
+ * Listeners should use @TransactionalEventListener so they only react once the change is committed.
+ */
+public class EntityChangedEvent {
+
+    public enum EntityType { FACILITY, CPU_SPEC, COUNTY, USER, SETTING }
+
+    public enum ChangeType { SAVED, DELETED }
+
+    private final EntityType entityType;
+    private final List<Long> entityIds;
+    private final ChangeType changeType;
+
+    public EntityChangedEvent(EntityType entityType, Long entityId, ChangeType changeType) {
+        this(entityType, Collections.singletonList(entityId), changeType);
+    }
+
+    public EntityChangedEvent(EntityType entityType, Collection<Long> entityIds, ChangeType changeType) {
+        this.entityType = entityType;
+        this.entityIds = Collections.unmodifiableList(new ArrayList<Long>(entityIds));
+        this.changeType = changeType;
+    }
+
+    public static EntityChangedEvent saved(EntityType entityType, Long entityId) {
+        return new EntityChangedEvent(entityType, entityId, ChangeType.SAVED);
+    }
+
+    public static EntityChangedEvent deleted(EntityType entityType, Long entityId) {
+        return new EntityChangedEvent(entityType, entityId, ChangeType.DELETED);
+    }
+
+    /**
+     * One event for many entities saved by the same bulk operation.
+     */
+    public static EntityChangedEvent savedAll(EntityType entityType, Collection<Long> entityIds) {
+        return new EntityChangedEvent(entityType, entityIds, ChangeType.SAVED);
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * ID of a single-entity event, null for bulk events (use getEntityIds()).
+     */
+    public Long getEntityId() {
+        return entityIds.size() == 1 ? entityIds.get(0) : null;
+    }
+
+    /**
+     * IDs of every entity covered by this event.
+     */
+    public List<Long> getEntityIds() {
+        return entityIds;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public boolean isDeleted() {
+        return changeType == ChangeType.DELETED;
+    }
+}
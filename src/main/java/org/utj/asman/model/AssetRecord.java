@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "asset_records")
+@Table(name = "asset_records", indexes = {
+        @Index(name = "idx_asset_monitor_serial", columnList = "monitor_serial"),
+        @Index(name = "idx_asset_ups_serial", columnList = "ups_serial")
+})
 public class AssetRecord {
 
     @Id
@@ -0,0 +1,37 @@
+package org.utj.asman.model;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the append-only change journal used by the mobile delta sync.
+ * The ID doubles as the sync version: every write to an asset, facility or CPU specification
+ * appends an entry in the same transaction, numbered from ChangeJournalSequence in commit order.
+ */
+@Entity
+@Data
+@Table(name = "change_journal")
+public class ChangeJournalEntry {
+
+    public enum EntityType { ASSET, FACILITY, CPU_SPEC }
+
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,23 @@
+package org.utj.asman.model;
+
+import lombok.Data;
+import javax.persistence.*;
+
+/**
+ * Single-row counter that hands out change journal versions.
+ * Writers increment it inside their transaction and keep its row lock until commit,
+ * so versions become visible in commit order and a rolled-back write leaves no gap.
+ */
+@Entity
+@Data
+@Table(name = "change_journal_sequence")
+public class ChangeJournalSequence {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_version", nullable = false)
+    private Long lastVersion;
+}
@@ -0,0 +1,35 @@
+package org.utj.asman.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A client-supplied Idempotency-Key and the asset its request created.
+ * Written in the same transaction as the asset, so a retried request can never create a second one.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    @Column(name = "asset_id", nullable = false)
+    private Long assetId;
+
+    // SHA-256 (hex) of the original request body, to reject a key reused for a different asset
+    @Column(name = "request_hash", nullable = false, columnDefinition = "CHAR(64)")
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,10 +1,22 @@
 package org.utj.asman.repository;
 
+import org.utj.asman.dto.AssetRowDto;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.SerialMatchDto;
 import org.utj.asman.model.AssetRecord;
+import org.utj.asman.model.Facility;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing AssetRecord entities (individual computer allocations).
@@ -12,6 +24,23 @@ import java.util.List;
  */
 public interface AssetRecordRepository extends JpaRepository<AssetRecord, Long> {
 
+    /**
+     * JDBC fetch size for streamed exports. Integer.MIN_VALUE makes MySQL Connector/J
+     * stream rows one at a time instead of buffering the whole result set.
+     */
+    String STREAMING_FETCH_SIZE = "-2147483648";
+
+    /**
+     * Shared SELECT/FROM clause for AssetSummaryDto projections.
+     * The argument order must match the AssetSummaryDto constructor.
+     */
+    String SUMMARY_SELECT = "SELECT new org.utj.asman.dto.AssetSummaryDto(" +
+            "a.id, f.id, f.facilityName, f.mflCode, cs.id, cs.manufacturer, cs.model, " +
+            "a.cpuSerial, a.monitorSerial, a.monitorModel, a.upsSerial, a.upsModel, a.assetTag, a.allocationDate) " +
+            "FROM AssetRecord a " +
+            "JOIN a.facility f " +
+            "LEFT JOIN a.cpuSpecification cs ";
+
     /**
      * Finds all AssetRecords assigned to a specific Facility ID.
      * @param facilityId The ID of the facility.
@@ -19,6 +48,94 @@ public interface AssetRecordRepository extends JpaRepository<AssetRecord, Long>
      */
     List<AssetRecord> findByFacilityId(Long facilityId);
 
+    // --- Fetch Plans ---
+    // Load facility, facility.county (LAZY) and cpuSpecification in the same statement,
+    // instead of one extra SELECT per distinct facility / spec / county.
+
+    /**
+     * Finds all AssetRecords of a facility with their facility, county and CPU spec in one statement.
+     * @param facilityId The ID of the facility.
+     * @return A list of AssetRecords with initialized relations.
+     */
+    @EntityGraph(attributePaths = {"facility", "facility.county", "cpuSpecification"})
+    @Query("SELECT a FROM AssetRecord a WHERE a.facility.id = :facilityId ORDER BY a.id ASC")
+    List<AssetRecord> findWithRelationsByFacilityId(@Param("facilityId") Long facilityId);
+
+    /**
+     * Finds every AssetRecord with its facility, county and CPU spec in one statement.
+     * @return All AssetRecords with initialized relations.
+     */
+    @EntityGraph(attributePaths = {"facility", "facility.county", "cpuSpecification"})
+    @Query("SELECT a FROM AssetRecord a ORDER BY a.id ASC")
+    List<AssetRecord> findAllWithRelations();
+
+    /**
+     * Finds a single AssetRecord with its facility, county and CPU spec in one statement.
+     * @param id The asset ID.
+     * @return The asset, if found.
+     */
+    @EntityGraph(attributePaths = {"facility", "facility.county", "cpuSpecification"})
+    @Query("SELECT a FROM AssetRecord a WHERE a.id = :id")
+    Optional<AssetRecord> findWithRelationsById(@Param("id") Long id);
+
+    // --- Keyset Pagination (Projection) ---
+
+    /**
+     * Returns the next page of asset summaries with an ID greater than the given cursor.
+     * Uses keyset pagination on the primary key, so the cost of a page does not grow
+     * with how deep into the table the client is.
+     * @param after The ID of the last asset on the previous page (0 for the first page).
+     * @param facilityId Optional facility filter (null for all facilities).
+     * @param pageable Only the page size is used; the offset must always be 0.
+     * @return Asset summaries ordered by ID ascending.
+     */
+    @Query(SUMMARY_SELECT +
+            "WHERE a.id > :after AND (:facilityId IS NULL OR f.id = :facilityId) " +
+            "ORDER BY a.id ASC")
+    List<AssetSummaryDto> findSummariesAfter(@Param("after") Long after,
+                                             @Param("facilityId") Long facilityId,
+                                             Pageable pageable);
+
+    // --- Admin Table (Server-side Paging) ---
+
+    /**
+     * Shared SELECT/FROM clause for AssetRowDto projections.
+     * The argument order must match the AssetRowDto constructor.
+     */
+    String TABLE_SELECT = "SELECT new org.utj.asman.dto.AssetRowDto(" +
+            "a.id, f.id, f.facilityName, a.cpuSerial, cs.model, cs.processor, cs.memory, " +
+            "a.monitorModel, a.monitorSerial, a.upsModel, a.upsSerial) " +
+            "FROM AssetRecord a " +
+            "JOIN a.facility f " +
+            "LEFT JOIN a.cpuSpecification cs ";
+
+    String TABLE_WHERE = "WHERE (:facilityId IS NULL OR f.id = :facilityId) " +
+            "AND (:term IS NULL OR LOWER(a.cpuSerial) LIKE :term OR LOWER(a.monitorSerial) LIKE :term " +
+            "OR LOWER(a.upsSerial) LIKE :term OR LOWER(a.assetTag) LIKE :term " +
+            "OR LOWER(f.facilityName) LIKE :term OR LOWER(f.mflCode) LIKE :term OR LOWER(cs.model) LIKE :term)";
+
+    /**
+     * Returns one page of the admin asset table. No count query is run; callers take totals from
+     * the in-memory rollups and only count when a search term is given.
+     * Sort properties may refer to the asset (e.g. "cpuSerial"), facility alias f or CPU spec alias cs.
+     * @param term Lower-case LIKE pattern (e.g. "%hp%"), or null for all assets
+     * @param facilityId Facility filter, or null for all facilities
+     * @param pageable Page number, size and sort
+     * @return Asset rows of the requested page
+     */
+    @Query(TABLE_SELECT + TABLE_WHERE)
+    List<AssetRowDto> findTableRows(@Param("term") String term, @Param("facilityId") Long facilityId,
+                                    Pageable pageable);
+
+    /**
+     * Counts the assets matching an admin table search.
+     * @param term Lower-case LIKE pattern, or null for all assets
+     * @param facilityId Facility filter, or null for all facilities
+     * @return Number of matching assets
+     */
+    @Query("SELECT COUNT(a) FROM AssetRecord a JOIN a.facility f LEFT JOIN a.cpuSpecification cs " + TABLE_WHERE)
+    long countTableRows(@Param("term") String term, @Param("facilityId") Long facilityId);
+
     // --- Existence Checks (Validation) ---
 
     /**
@@ -42,6 +159,88 @@ public interface AssetRecordRepository extends JpaRepository<AssetRecord, Long>
      */
     boolean existsByUpsSerial(String upsSerial);
 
+    /**
+     * Streams summaries of every asset in ID order for exports.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     * Rows are DTO projections, so nothing accumulates in the persistence context.
+     * @return A lazily-fetched stream of asset summaries.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE))
+    @Query(SUMMARY_SELECT + "ORDER BY a.id ASC")
+    Stream<AssetSummaryDto> streamAllSummaries();
+
+    /**
+     * Set-based duplicate check: finds every asset whose CPU, Monitor or UPS serial
+     * is in the given collection, in a single query.
+     * Callers should keep the collection to a few hundred entries per call.
+     * @param serials Serial numbers to look for.
+     * @return The serials of all matching assets.
+     */
+    @Query("SELECT new org.utj.asman.dto.SerialMatchDto(a.id, a.cpuSerial, a.monitorSerial, a.upsSerial) " +
+            "FROM AssetRecord a " +
+            "WHERE a.cpuSerial IN :serials OR a.monitorSerial IN :serials OR a.upsSerial IN :serials")
+    List<SerialMatchDto> findSerialMatches(@Param("serials") Collection<String> serials);
+
+    /**
+     * Keyset-paginated scan of the serial numbers of every asset.
+     * Used to warm the in-memory serial registry without loading the whole table at once.
+     * @param after The ID of the last asset of the previous batch (0 for the first batch).
+     * @param pageable Only the page size is used.
+     * @return Serials ordered by asset ID ascending.
+     */
+    @Query("SELECT new org.utj.asman.dto.SerialMatchDto(a.id, a.cpuSerial, a.monitorSerial, a.upsSerial) " +
+            "FROM AssetRecord a WHERE a.id > :after ORDER BY a.id ASC")
+    List<SerialMatchDto> findSerialsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Returns summaries of the assets with the given CPU serials.
+     * Used after batch inserts to learn the generated IDs.
+     * @param cpuSerials CPU serial numbers.
+     * @return Matching asset summaries.
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.cpuSerial IN :cpuSerials")
+    List<AssetSummaryDto> findSummariesByCpuSerialIn(@Param("cpuSerials") Collection<String> cpuSerials);
+
+    /**
+     * Returns summaries of every asset whose CPU, Monitor or UPS serial is in the given collection.
+     * Used by the batch serial lookup; callers should keep the collection to a few hundred entries per call.
+     * @param serials Serial numbers to look for.
+     * @return Matching asset summaries (an asset appears once even if several of its serials match).
+     */
+    @Query(SUMMARY_SELECT +
+            "WHERE a.cpuSerial IN :serials OR a.monitorSerial IN :serials OR a.upsSerial IN :serials")
+    List<AssetSummaryDto> findSummariesBySerialIn(@Param("serials") Collection<String> serials);
+
+    /**
+     * Returns summaries of the assets with the given IDs (in no particular order).
+     * @param ids Asset IDs.
+     * @return Matching asset summaries.
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.id IN :ids")
+    List<AssetSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns summaries of every asset of a facility, ordered by ID.
+     * @param facilityId The facility ID.
+     * @return Asset summaries of that facility.
+     */
+    @Query(SUMMARY_SELECT + "WHERE f.id = :facilityId ORDER BY a.id ASC")
+    List<AssetSummaryDto> findSummariesByFacilityId(@Param("facilityId") Long facilityId);
+
+    // --- Bulk Updates ---
+
+    /**
+     * Moves the given assets to another facility in a single statement.
+     * Callers should keep the collection to about a thousand IDs per call.
+     * Clears the persistence context, since managed AssetRecords would be stale afterwards.
+     * @param ids Asset IDs.
+     * @param facility The target facility.
+     * @return Number of rows updated.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AssetRecord a SET a.facility = :facility WHERE a.id IN :ids")
+    int updateFacilityByIdIn(@Param("ids") Collection<Long> ids, @Param("facility") Facility facility);
+
     // --- Search / Auto-Complete Queries ---
 
     /**
@@ -62,12 +261,54 @@ public interface AssetRecordRepository extends JpaRepository<AssetRecord, Long>
     @Query("SELECT DISTINCT a.upsModel FROM AssetRecord a WHERE a.upsModel LIKE :query%")
     List<String> searchUpsModels(@Param("query") String query);
 
+    /**
+     * Counts assets per distinct Monitor Model.
+     * Used to seed the in-memory model catalog.
+     * @return [monitorModel, count] pairs.
+     */
+    @Query("SELECT a.monitorModel, COUNT(a) FROM AssetRecord a WHERE a.monitorModel IS NOT NULL GROUP BY a.monitorModel")
+    List<Object[]> countMonitorModels();
+
+    /**
+     * Counts assets per distinct UPS Model.
+     * Used to seed the in-memory model catalog.
+     * @return [upsModel, count] pairs.
+     */
+    @Query("SELECT a.upsModel, COUNT(a) FROM AssetRecord a WHERE a.upsModel IS NOT NULL GROUP BY a.upsModel")
+    List<Object[]> countUpsModels();
+
+    /**
+     * Counts assets per facility.
+     * Used to seed the in-memory asset rollups.
+     * @return [facilityId, count] pairs.
+     */
+    @Query("SELECT a.facility.id, COUNT(a) FROM AssetRecord a GROUP BY a.facility.id")
+    List<Object[]> countByFacility();
+
+    /**
+     * Counts assets per CPU specification (assets without a spec are not included).
+     * Used to seed the in-memory asset rollups.
+     * @return [cpuSpecId, count] pairs.
+     */
+    @Query("SELECT cs.id, COUNT(a) FROM AssetRecord a JOIN a.cpuSpecification cs GROUP BY cs.id")
+    List<Object[]> countByCpuSpec();
+
+    /**
+     * Counts assets per allocation month.
+     * Used to seed the in-memory asset rollups.
+     * @return [year, month, count] triples.
+     */
+    @Query("SELECT YEAR(a.allocationDate), MONTH(a.allocationDate), COUNT(a) FROM AssetRecord a " +
+            "GROUP BY YEAR(a.allocationDate), MONTH(a.allocationDate)")
+    List<Object[]> countByAllocationMonth();
+
     /**
      * Optional: Global search for the Admin Panel.
      * Search by CPU Serial, Facility Name, or CPU Model Name (via the joined relationship).
      * @param query The search term.
      * @return List of matching assets.
      */
+    @EntityGraph(attributePaths = {"facility", "facility.county", "cpuSpecification"})
     @Query("SELECT a FROM AssetRecord a " +
             "JOIN a.facility f " +
             "JOIN a.cpuSpecification cs " +
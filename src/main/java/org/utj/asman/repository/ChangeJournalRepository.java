@@ -0,0 +1,22 @@
+package org.utj.asman.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.utj.asman.model.ChangeJournalEntry;
+
+import java.util.List;
+
+/**
+ * Repository for the append-only change journal.
+ * Entries are written with plain JDBC by ChangeJournalService; this interface only reads them.
+ */
+public interface ChangeJournalRepository extends JpaRepository<ChangeJournalEntry, Long> {
+
+    /**
+     * Journal entries after a sync version, oldest first.
+     * @param version The last version the client has applied.
+     * @param pageable Only the page size is used.
+     * @return Entries with an ID greater than the version.
+     */
+    List<ChangeJournalEntry> findByIdGreaterThanOrderByIdAsc(Long version, Pageable pageable);
+}
@@ -1,7 +1,12 @@
 package org.utj.asman.repository;
 
 import org.utj.asman.model.CpuSpecification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -35,4 +40,31 @@ public interface CpuSpecificationRepository extends JpaRepository<CpuSpecificati
             String processor,
             String memory,
             String hardDisk);
-}
\ No newline at end of file
+
+    /**
+     * Returns the IDs of all CPU specifications.
+     * Used to resolve specifications in memory during bulk operations.
+     * @return All specification IDs.
+     */
+    @Query("SELECT cs.id FROM CpuSpecification cs")
+    List<Long> findAllIds();
+
+    /**
+     * Returns [id, manufacturer, model] triples for every CPU specification.
+     * Used to label the in-memory asset rollups without loading entities.
+     * @return All specification labels.
+     */
+    @Query("SELECT cs.id, cs.manufacturer, cs.model FROM CpuSpecification cs")
+    List<Object[]> findAllIdManufacturerModel();
+
+    /**
+     * Paginated specification search by manufacturer, model, processor or supplier.
+     * @param term Lower-case LIKE pattern (e.g. "%dell%"), or null for all specifications
+     * @param pageable Page number, size and sort
+     * @return One page of matching specifications
+     */
+    @Query("SELECT cs FROM CpuSpecification cs " +
+            "WHERE :term IS NULL OR LOWER(cs.manufacturer) LIKE :term OR LOWER(cs.model) LIKE :term " +
+            "OR LOWER(cs.processor) LIKE :term OR LOWER(cs.supplier) LIKE :term")
+    Page<CpuSpecification> search(@Param("term") String term, Pageable pageable);
+}
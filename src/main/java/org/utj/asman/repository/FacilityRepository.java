@@ -1,15 +1,34 @@
 package org.utj.asman.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.utj.asman.dto.FacilityOptionDto;
+import org.utj.asman.dto.FacilityRowDto;
 import org.utj.asman.model.Facility;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FacilityRepository extends JpaRepository<Facility, Long> {
 
+    /**
+     * Shared SELECT/FROM clause for FacilityRowDto projections (county alias: c).
+     * The argument order must match the FacilityRowDto constructor.
+     */
+    String ROW_SELECT = "SELECT new org.utj.asman.dto.FacilityRowDto(" +
+            "f.id, f.facilityName, f.mflCode, c.id, c.countyName, c.countyCode, f.createdAt) " +
+            "FROM Facility f LEFT JOIN f.county c ";
+
+    String SEARCH_WHERE = "WHERE (:term IS NULL OR LOWER(f.facilityName) LIKE :term OR LOWER(f.mflCode) LIKE :term) " +
+            "AND (:countyId IS NULL OR c.id = :countyId)";
+
     /**
      * Find facility by MFL code
      * Used for validation to ensure MFL codes are unique
@@ -22,6 +41,50 @@ public interface FacilityRepository extends JpaRepository<Facility, Long> {
      */
     List<Facility> findByCountyId(Long countyId);
 
+    /**
+     * All facilities with their county as flat rows, in a single statement
+     * (read-only list views: no managed entities or dirty-checking snapshots are created)
+     */
+    @Query(ROW_SELECT + "ORDER BY f.id ASC")
+    List<FacilityRowDto> findAllRows();
+
+    /**
+     * All facilities of a county as flat rows, in a single statement
+     */
+    @Query(ROW_SELECT + "WHERE c.id = :countyId ORDER BY f.id ASC")
+    List<FacilityRowDto> findRowsByCountyId(@Param("countyId") Long countyId);
+
+    /**
+     * All facilities in the shape of the mobile "Select Facility" list, selecting only those columns
+     */
+    @Query("SELECT new org.utj.asman.dto.FacilityOptionDto(f.id, f.facilityName, f.mflCode, f.createdAt) " +
+            "FROM Facility f ORDER BY f.id ASC")
+    List<FacilityOptionDto> findAllOptions();
+
+    /**
+     * Find a facility by ID with its county loaded in the same statement
+     */
+    @EntityGraph(attributePaths = "county")
+    @Query("SELECT f FROM Facility f WHERE f.id = :id")
+    Optional<Facility> findWithCountyById(@Param("id") Long id);
+
+    /**
+     * Find a facility by MFL code with its county loaded in the same statement
+     */
+    @EntityGraph(attributePaths = "county")
+    @Query("SELECT f FROM Facility f WHERE f.mflCode = :mflCode")
+    Optional<Facility> findWithCountyByMflCode(@Param("mflCode") String mflCode);
+
+    /**
+     * Paginated facility search by name or MFL code, optionally within one county.
+     * Sort properties may refer to the facility (e.g. "facilityName") or the county alias (e.g. "c.countyName").
+     * @param term Lower-case LIKE pattern (e.g. "%kenya%"), or null for all facilities
+     * @param countyId County filter, or null for all counties
+     */
+    @Query(value = ROW_SELECT + SEARCH_WHERE,
+            countQuery = "SELECT COUNT(f) FROM Facility f LEFT JOIN f.county c " + SEARCH_WHERE)
+    Page<FacilityRowDto> searchRows(@Param("term") String term, @Param("countyId") Long countyId, Pageable pageable);
+
     /**
      * Check if a facility exists with the given MFL code
      */
@@ -41,4 +104,31 @@ public interface FacilityRepository extends JpaRepository<Facility, Long> {
      * Find facilities by MFL code containing search term (case insensitive)
      */
     List<Facility> findByMflCodeContainingIgnoreCase(String mflCode);
+
+    /**
+     * Returns [id, mflCode] pairs for every facility.
+     * Used to resolve facilities in memory during bulk operations.
+     */
+    @Query("SELECT f.id, f.mflCode FROM Facility f")
+    List<Object[]> findAllIdAndMflCode();
+
+    /**
+     * Returns [id, mflCode, facilityName, countyId] for the facilities with the given MFL codes.
+     * Used by the facility import to decide between insert, update and no-op per chunk.
+     */
+    @Query("SELECT f.id, f.mflCode, f.facilityName, c.id FROM Facility f LEFT JOIN f.county c WHERE f.mflCode IN :mflCodes")
+    List<Object[]> findImportStateByMflCodeIn(@Param("mflCodes") Collection<String> mflCodes);
+
+    /**
+     * Returns the IDs of the facilities with the given MFL codes.
+     */
+    @Query("SELECT f.id FROM Facility f WHERE f.mflCode IN :mflCodes")
+    List<Long> findIdsByMflCodeIn(@Param("mflCodes") Collection<String> mflCodes);
+
+    /**
+     * Returns [id, countyId] pairs for every facility (countyId is null when unassigned).
+     * Used to roll per-facility counts up to counties in memory.
+     */
+    @Query("SELECT f.id, c.id FROM Facility f LEFT JOIN f.county c")
+    List<Object[]> findAllIdAndCountyId();
 }
\ No newline at end of file
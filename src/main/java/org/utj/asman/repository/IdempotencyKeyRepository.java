@@ -0,0 +1,26 @@
+package org.utj.asman.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.utj.asman.model.IdempotencyKey;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for persisted Idempotency-Keys of asset creation requests.
+ */
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Deletes every key created before the given time in a single statement.
+     * @param cutoff Keys older than this are removed.
+     * @return Number of keys removed.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,7 +1,12 @@
 package org.utj.asman.repository;
 
+import org.utj.asman.dto.UserRowDto;
 import org.utj.asman.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 /**
@@ -31,4 +36,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return True if a user with this name exists, false otherwise.
      */
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    /**
+     * Paginated user search by username or full name, without password hashes.
+     * @param term Lower-case LIKE pattern (e.g. "%jane%"), or null for all users
+     * @param pageable Page number, size and sort
+     * @return One page of matching users
+     */
+    @Query(value = "SELECT new org.utj.asman.dto.UserRowDto(u.id, u.username, u.name, u.role, u.enabled) " +
+            "FROM User u WHERE :term IS NULL OR LOWER(u.username) LIKE :term OR LOWER(u.name) LIKE :term",
+            countQuery = "SELECT COUNT(u) FROM User u " +
+                    "WHERE :term IS NULL OR LOWER(u.username) LIKE :term OR LOWER(u.name) LIKE :term")
+    Page<UserRowDto> searchRows(@Param("term") String term, Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.repository.AssetRecordRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the full asset inventory as newline-delimited JSON (one AssetSummaryDto per line).
+ *
+ * Rows are read through a forward-only database cursor and written straight to the
+ * output stream, so memory use does not depend on the number of assets.
+ */
+@Service
+public class AssetExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetExportService.class);
+
+    // Flush the response every N rows so clients start receiving data immediately
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Write every asset to the output stream as NDJSON. The stream is flushed but not closed.
+     *
+     * @return Number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream outputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+
+        ObjectWriter writer = objectMapper.writerFor(AssetSummaryDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated explicitly below - no extra separator between root values
+        generator.setRootValueSeparator(null);
+
+        try (Stream<AssetSummaryDto> rows = assetRepository.streamAllSummaries()) {
+            Iterator<AssetSummaryDto> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                count++;
+                if (count % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+        } finally {
+            generator.close();
+        }
+
+        log.info("Exported {} assets as NDJSON in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+}
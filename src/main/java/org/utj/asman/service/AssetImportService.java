@@ -0,0 +1,385 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.utj.asman.dto.AssetEntryDTO;
+import org.utj.asman.dto.AssetImportErrorDto;
+import org.utj.asman.dto.AssetImportResultDto;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.SerialMatchDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.model.ChangeJournalEntry;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+import org.utj.asman.util.CsvLineParser;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming bulk import of assets from CSV or JSON lines.
+ *
+ * The upload is read line by line and processed in chunks of CHUNK_SIZE rows:
+ * - facilities and CPU specs are resolved from in-memory maps loaded once per import
+ * - all CPU, Monitor and UPS serials of a chunk are checked against the database in one query
+ * - accepted rows are written with a single JDBC batch insert per chunk
+ *
+ * Supported columns / JSON fields (case-insensitive):
+ * facilityId or mflCode, cpuSpecId, cpuSerial, monitorSerial, monitorModel, upsSerial, upsModel, assetTag
+ */
+@Service
+public class AssetImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetImportService.class);
+
+    public static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO asset_records " +
+            "(facility_id, cpu_spec_id, allocation_date, cpu_serial, monitor_serial, monitor_model, ups_serial, ups_model, asset_tag) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ChangeJournalService changeJournal;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Import assets from a CSV stream. The first line must be a header row.
+     */
+    public AssetImportResultDto importCsv(InputStream inputStream) throws IOException {
+        ImportContext ctx = newContext();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return ctx.result;
+        }
+        List<String> header = CsvLineParser.parse(headerLine);
+
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = CsvLineParser.parse(line);
+            Map<String, String> fields = new HashMap<String, String>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                fields.put(header.get(i).toLowerCase(Locale.ROOT), values.get(i));
+            }
+            acceptRow(ctx, lineNumber, fields);
+        }
+
+        flushChunk(ctx);
+        return finish(ctx.result);
+    }
+
+    /**
+     * Import assets from a JSON lines (NDJSON) stream - one JSON object per line.
+     */
+    public AssetImportResultDto importJsonLines(InputStream inputStream) throws IOException {
+        ImportContext ctx = newContext();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<String, String>();
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = it.next();
+                    if (!entry.getValue().isNull()) {
+                        fields.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue().asText());
+                    }
+                }
+            } catch (Exception e) {
+                ctx.result.setTotalRows(ctx.result.getTotalRows() + 1);
+                ctx.result.addError(lineNumber, null, "Invalid JSON: " + e.getMessage());
+                continue;
+            }
+            acceptRow(ctx, lineNumber, fields);
+        }
+
+        flushChunk(ctx);
+        return finish(ctx.result);
+    }
+
+    // --- Row handling ---
+
+    private ImportContext newContext() {
+        ImportContext ctx = new ImportContext();
+
+        for (Object[] row : facilityRepository.findAllIdAndMflCode()) {
+            Long id = (Long) row[0];
+            ctx.facilityIds.add(id);
+            if (row[1] != null) {
+                ctx.facilityIdsByMflCode.put(((String) row[1]).trim(), id);
+            }
+        }
+        ctx.cpuSpecIds.addAll(cpuSpecRepository.findAllIds());
+        return ctx;
+    }
+
+    private void acceptRow(ImportContext ctx, int lineNumber, Map<String, String> fields) {
+        AssetImportResultDto result = ctx.result;
+        result.setTotalRows(result.getTotalRows() + 1);
+
+        AssetEntryDTO dto = new AssetEntryDTO();
+        String cpuSerial = trimToNull(fields.get("cpuserial"));
+        dto.setCpuSerial(cpuSerial);
+        dto.setMonitorSerial(trimToNull(fields.get("monitorserial")));
+        dto.setMonitorModel(trimToNull(fields.get("monitormodel")));
+        dto.setUpsSerial(trimToNull(fields.get("upsserial")));
+        dto.setUpsModel(trimToNull(fields.get("upsmodel")));
+        dto.setAssetTag(trimToNull(fields.get("assettag")));
+
+        // Resolve facility by ID or MFL code
+        String facilityId = trimToNull(fields.get("facilityid"));
+        String mflCode = trimToNull(fields.get("mflcode"));
+        try {
+            if (facilityId != null) {
+                dto.setFacilityId(Long.valueOf(facilityId));
+                if (!ctx.facilityIds.contains(dto.getFacilityId())) {
+                    result.addError(lineNumber, cpuSerial, "Facility not found: " + facilityId);
+                    return;
+                }
+            } else if (mflCode != null) {
+                dto.setFacilityId(ctx.facilityIdsByMflCode.get(mflCode));
+                if (dto.getFacilityId() == null) {
+                    result.addError(lineNumber, cpuSerial, "Facility not found for MFL code: " + mflCode);
+                    return;
+                }
+            }
+
+            String cpuSpecId = trimToNull(fields.get("cpuspecid"));
+            if (cpuSpecId != null) {
+                dto.setCpuSpecId(Long.valueOf(cpuSpecId));
+                if (!ctx.cpuSpecIds.contains(dto.getCpuSpecId())) {
+                    result.addError(lineNumber, cpuSerial, "CPU Spec not found: " + cpuSpecId);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            result.addError(lineNumber, cpuSerial, "Invalid numeric ID: " + e.getMessage());
+            return;
+        }
+
+        // Bean validation (required fields, lengths) using the same rules as the single-asset API
+        Set<ConstraintViolation<AssetEntryDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<AssetEntryDTO> first = violations.iterator().next();
+            result.addError(lineNumber, cpuSerial, first.getPropertyPath() + ": " + first.getMessage());
+            return;
+        }
+
+        // Duplicates within the upload itself, compared like the database does (trimmed, case-insensitive)
+        if (!ctx.seenCpuSerials.add(SerialRegistryService.normalize(dto.getCpuSerial()))) {
+            result.addError(lineNumber, cpuSerial, "Duplicate CPU Serial in upload: " + dto.getCpuSerial());
+            return;
+        }
+        if (dto.getMonitorSerial() != null && !ctx.seenMonitorSerials.add(SerialRegistryService.normalize(dto.getMonitorSerial()))) {
+            result.addError(lineNumber, cpuSerial, "Duplicate Monitor Serial in upload: " + dto.getMonitorSerial());
+            return;
+        }
+        if (dto.getUpsSerial() != null && !ctx.seenUpsSerials.add(SerialRegistryService.normalize(dto.getUpsSerial()))) {
+            result.addError(lineNumber, cpuSerial, "Duplicate UPS Serial in upload: " + dto.getUpsSerial());
+            return;
+        }
+
+        ctx.chunk.add(new PendingRow(lineNumber, dto));
+        if (ctx.chunk.size() >= CHUNK_SIZE) {
+            flushChunk(ctx);
+        }
+    }
+
+    /**
+     * Validate the pending chunk against the database in one query and batch insert the survivors.
+     */
+    private void flushChunk(ImportContext ctx) {
+        if (ctx.chunk.isEmpty()) {
+            return;
+        }
+        List<PendingRow> chunk = new ArrayList<PendingRow>(ctx.chunk);
+        ctx.chunk.clear();
+
+        // 1. One set-based serial check for the whole chunk.
+        // The database matches case-insensitively, so matches are compared by normalized serial.
+        Set<String> serials = new HashSet<String>();
+        for (PendingRow row : chunk) {
+            serials.add(row.dto.getCpuSerial().trim());
+            if (row.dto.getMonitorSerial() != null) serials.add(row.dto.getMonitorSerial().trim());
+            if (row.dto.getUpsSerial() != null) serials.add(row.dto.getUpsSerial().trim());
+        }
+
+        Set<String> takenCpu = new HashSet<String>();
+        Set<String> takenMonitor = new HashSet<String>();
+        Set<String> takenUps = new HashSet<String>();
+        for (SerialMatchDto match : assetRepository.findSerialMatches(serials)) {
+            if (match.getCpuSerial() != null) takenCpu.add(SerialRegistryService.normalize(match.getCpuSerial()));
+            if (match.getMonitorSerial() != null) takenMonitor.add(SerialRegistryService.normalize(match.getMonitorSerial()));
+            if (match.getUpsSerial() != null) takenUps.add(SerialRegistryService.normalize(match.getUpsSerial()));
+        }
+
+        List<PendingRow> accepted = new ArrayList<PendingRow>(chunk.size());
+        for (PendingRow row : chunk) {
+            AssetEntryDTO dto = row.dto;
+            if (takenCpu.contains(SerialRegistryService.normalize(dto.getCpuSerial()))) {
+                ctx.result.addError(row.line, dto.getCpuSerial(), "CPU Serial exists: " + dto.getCpuSerial());
+            } else if (dto.getMonitorSerial() != null
+                    && takenMonitor.contains(SerialRegistryService.normalize(dto.getMonitorSerial()))) {
+                ctx.result.addError(row.line, dto.getCpuSerial(), "Monitor Serial exists: " + dto.getMonitorSerial());
+            } else if (dto.getUpsSerial() != null
+                    && takenUps.contains(SerialRegistryService.normalize(dto.getUpsSerial()))) {
+                ctx.result.addError(row.line, dto.getCpuSerial(), "UPS Serial exists: " + dto.getUpsSerial());
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        // 2. One JDBC batch per chunk
+        try {
+            insertRows(accepted);
+            ctx.result.setImported(ctx.result.getImported() + accepted.size());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the serials between the check and the insert.
+            // Fall back to row-by-row inserts so only the offending rows are rejected.
+            log.warn("Batch insert of {} assets failed, retrying row by row: {}", accepted.size(), e.getMessage());
+            for (PendingRow row : accepted) {
+                try {
+                    insertRows(Collections.singletonList(row));
+                    ctx.result.setImported(ctx.result.getImported() + 1);
+                } catch (DataIntegrityViolationException rowError) {
+                    ctx.result.addError(row.line, row.dto.getCpuSerial(), "Duplicate serial number");
+                }
+            }
+        }
+    }
+
+    private void insertRows(final List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        final List<Object[]> batchArgs = new ArrayList<Object[]>(rows.size());
+        final List<String> cpuSerials = new ArrayList<String>(rows.size());
+        for (PendingRow row : rows) {
+            AssetEntryDTO dto = row.dto;
+            cpuSerials.add(dto.getCpuSerial());
+            batchArgs.add(new Object[] {
+                    dto.getFacilityId(), dto.getCpuSpecId(), now, dto.getCpuSerial(),
+                    dto.getMonitorSerial(), dto.getMonitorModel(), dto.getUpsSerial(), dto.getUpsModel(),
+                    dto.getAssetTag()
+            });
+        }
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+
+            // Read back the generated IDs (one query) so listeners see the same events as single saves
+            List<AssetSummaryDto> created = assetRepository.findSummariesByCpuSerialIn(cpuSerials);
+            List<Long> createdIds = new ArrayList<Long>(created.size());
+            for (AssetSummaryDto asset : created) {
+                createdIds.add(asset.getId());
+                eventPublisher.publishEvent(AssetChangedEvent.created(asset));
+            }
+            changeJournal.recordAll(ChangeJournalEntry.EntityType.ASSET, createdIds, ChangeJournalEntry.Operation.UPSERT);
+            return null;
+        });
+    }
+
+    private AssetImportResultDto finish(AssetImportResultDto result) {
+        // Errors from the database check are found per chunk - report them in file order
+        result.getErrors().sort(Comparator.comparingInt(AssetImportErrorDto::getLine));
+        log.info("Asset import finished: {} rows, {} imported, {} rejected",
+                result.getTotalRows(), result.getImported(), result.getRejected());
+        return result;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // --- Internal state of a single import run ---
+
+    private static class ImportContext {
+        final AssetImportResultDto result = new AssetImportResultDto();
+        final Set<Long> facilityIds = new HashSet<Long>();
+        final Map<String, Long> facilityIdsByMflCode = new HashMap<String, Long>();
+        final Set<Long> cpuSpecIds = new HashSet<Long>();
+        final Set<String> seenCpuSerials = new HashSet<String>();
+        final Set<String> seenMonitorSerials = new HashSet<String>();
+        final Set<String> seenUpsSerials = new HashSet<String>();
+        final List<PendingRow> chunk = new ArrayList<PendingRow>(CHUNK_SIZE);
+    }
+
+    private static class PendingRow {
+        final int line;
+        final AssetEntryDTO dto;
+
+        PendingRow(int line, AssetEntryDTO dto) {
+            this.line = line;
+            this.dto = dto;
+        }
+    }
+}
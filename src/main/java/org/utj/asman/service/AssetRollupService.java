@@ -0,0 +1,282 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetRollupDto;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.FacilityRowDto;
+import org.utj.asman.dto.RollupEntryDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory asset counts for the dashboard and the reports page.
+ *
+ * Assets are counted per facility, per CPU specification and per allocation month. The counts are
+ * seeded with GROUP BY queries at startup and kept current from AssetChangedEvent deltas, so no read
+ * ever scans asset_records. County and manufacturer totals are rolled up on read from the small
+ * facility and CPU spec label maps, which are reloaded after facility, county and CPU spec writes
+ * (moving a facility to another county needs no recount).
+ *
+ * Reads cost O(facilities + CPU specs + months), independent of the number of assets.
+ * Until warm-up has finished, reads fall back to the grouped queries.
+ */
+@Service
+public class AssetRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetRollupService.class);
+
+    public static final String NOT_ASSIGNED = "Not Assigned";
+    public static final String NOT_SPECIFIED = "Not Specified";
+
+    private static final Comparator<RollupEntryDto> LARGEST_FIRST =
+            Comparator.comparingLong(RollupEntryDto::getCount).reversed()
+                    .thenComparing(RollupEntryDto::getLabel, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    private volatile Counts live = new Counts();
+
+    // facilityId -> facility and county labels
+    private volatile Map<Long, FacilityRowDto> facilities = new HashMap<Long, FacilityRowDto>();
+
+    // cpuSpecId -> [manufacturer, model]
+    private volatile Map<Long, String[]> cpuSpecs = new HashMap<Long, String[]>();
+
+    private volatile boolean warmed = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            facilities = loadFacilities();
+            cpuSpecs = loadCpuSpecs();
+            live = loadCounts();
+            warmed = true;
+            log.info("Asset rollups warmed in {} ms: {} assets in {} facilities, {} CPU specs, {} months",
+                    System.currentTimeMillis() - start, live.total.get(), live.byFacility.size(),
+                    live.byCpuSpec.size(), live.byMonth.size());
+        } catch (Exception e) {
+            log.error("Could not warm asset rollups, falling back to database counts", e);
+        }
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    public long getTotalAssets() {
+        return warmed ? live.total.get() : assetRepository.count();
+    }
+
+    /**
+     * Number of assets per facility ID.
+     */
+    public Map<Long, Long> getCountsByFacility() {
+        return new HashMap<Long, Long>(counts().byFacility);
+    }
+
+    /**
+     * All rollups, labelled and sorted for display.
+     *
+     * @param top Maximum number of groups per dimension, largest first (null or 0 for all); months are never cut
+     */
+    public AssetRollupDto getRollup(Integer top) {
+        boolean fromMemory = warmed;
+        Counts counts = fromMemory ? live : loadCounts();
+        Map<Long, FacilityRowDto> facilityLabels = fromMemory ? facilities : loadFacilities();
+        Map<Long, String[]> specLabels = fromMemory ? cpuSpecs : loadCpuSpecs();
+
+        AssetRollupDto rollup = new AssetRollupDto();
+        rollup.setTotalAssets(counts.total.get());
+        rollup.setLive(fromMemory);
+
+        Map<Long, RollupEntryDto> byCounty = new HashMap<Long, RollupEntryDto>();
+        for (Map.Entry<Long, Long> entry : counts.byFacility.entrySet()) {
+            FacilityRowDto facility = facilityLabels.get(entry.getKey());
+            long count = entry.getValue();
+            rollup.getByFacility().add(facility != null
+                    ? new RollupEntryDto(entry.getKey(), facility.getFacilityName(), facility.getMflCode(), count)
+                    : new RollupEntryDto(entry.getKey(), "Facility #" + entry.getKey(), null, count));
+
+            Long countyId = facility != null ? facility.getCountyId() : null;
+            RollupEntryDto county = byCounty.get(countyId);
+            if (county == null) {
+                county = countyId != null
+                        ? new RollupEntryDto(countyId, facility.getCountyName(), facility.getCountyCode(), 0)
+                        : new RollupEntryDto(null, NOT_ASSIGNED, null, 0);
+                byCounty.put(countyId, county);
+            }
+            county.setCount(county.getCount() + count);
+        }
+        rollup.getByCounty().addAll(byCounty.values());
+
+        Map<String, Long> byManufacturer = new HashMap<String, Long>();
+        long withSpec = 0;
+        for (Map.Entry<Long, Long> entry : counts.byCpuSpec.entrySet()) {
+            String[] spec = specLabels.get(entry.getKey());
+            String manufacturer = spec != null && spec[0] != null && !spec[0].trim().isEmpty() ? spec[0].trim() : NOT_SPECIFIED;
+            String label = spec != null ? join(spec[0], spec[1]) : "CPU spec #" + entry.getKey();
+            rollup.getByCpuSpec().add(new RollupEntryDto(entry.getKey(), label, null, entry.getValue()));
+            byManufacturer.merge(manufacturer, entry.getValue(), Long::sum);
+            withSpec += entry.getValue();
+        }
+        long withoutSpec = counts.total.get() - withSpec;
+        if (withoutSpec > 0) {
+            rollup.getByCpuSpec().add(new RollupEntryDto(null, NOT_SPECIFIED, null, withoutSpec));
+            byManufacturer.merge(NOT_SPECIFIED, withoutSpec, Long::sum);
+        }
+        for (Map.Entry<String, Long> entry : byManufacturer.entrySet()) {
+            rollup.getByManufacturer().add(new RollupEntryDto(null, entry.getKey(), null, entry.getValue()));
+        }
+
+        for (Map.Entry<YearMonth, Long> entry : new TreeMap<YearMonth, Long>(counts.byMonth).entrySet()) {
+            rollup.getByMonth().add(new RollupEntryDto(null, entry.getKey().toString(), null, entry.getValue()));
+        }
+
+        rollup.setByFacility(sortAndLimit(rollup.getByFacility(), top));
+        rollup.setByCounty(sortAndLimit(rollup.getByCounty(), top));
+        rollup.setByCpuSpec(sortAndLimit(rollup.getByCpuSpec(), top));
+        rollup.setByManufacturer(sortAndLimit(rollup.getByManufacturer(), top));
+        return rollup;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        Counts counts = live;
+        AssetSummaryDto before = event.getBefore();
+        AssetSummaryDto after = event.getAfter();
+
+        if (before != null) {
+            adjust(counts.byFacility, before.getFacilityId(), -1);
+            adjust(counts.byCpuSpec, before.getCpuSpecId(), -1);
+            adjust(counts.byMonth, monthOf(before), -1);
+        }
+        if (after != null) {
+            adjust(counts.byFacility, after.getFacilityId(), 1);
+            adjust(counts.byCpuSpec, after.getCpuSpecId(), 1);
+            adjust(counts.byMonth, monthOf(after), 1);
+        }
+        if (before == null && after != null) {
+            counts.total.incrementAndGet();
+        } else if (before != null && after == null) {
+            counts.total.decrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+            case COUNTY:
+                // A county change can relabel or unassign many facilities at once
+                facilities = loadFacilities();
+                break;
+            case CPU_SPEC:
+                cpuSpecs = loadCpuSpecs();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Counts counts() {
+        return warmed ? live : loadCounts();
+    }
+
+    private Counts loadCounts() {
+        Counts counts = new Counts();
+        counts.total.set(assetRepository.count());
+        for (Object[] row : assetRepository.countByFacility()) {
+            counts.byFacility.put((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : assetRepository.countByCpuSpec()) {
+            counts.byCpuSpec.put((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : assetRepository.countByAllocationMonth()) {
+            if (row[0] != null && row[1] != null) {
+                counts.byMonth.put(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()), (Long) row[2]);
+            }
+        }
+        return counts;
+    }
+
+    private Map<Long, FacilityRowDto> loadFacilities() {
+        Map<Long, FacilityRowDto> map = new HashMap<Long, FacilityRowDto>();
+        for (FacilityRowDto row : facilityRepository.findAllRows()) {
+            map.put(row.getId(), row);
+        }
+        return map;
+    }
+
+    private Map<Long, String[]> loadCpuSpecs() {
+        Map<Long, String[]> map = new HashMap<Long, String[]>();
+        for (Object[] row : cpuSpecRepository.findAllIdManufacturerModel()) {
+            map.put((Long) row[0], new String[] { (String) row[1], (String) row[2] });
+        }
+        return map;
+    }
+
+    private static YearMonth monthOf(AssetSummaryDto asset) {
+        return asset.getAllocationDate() != null ? YearMonth.from(asset.getAllocationDate()) : null;
+    }
+
+    private static String join(String manufacturer, String model) {
+        String label = ((manufacturer != null ? manufacturer.trim() : "") + " " + (model != null ? model.trim() : "")).trim();
+        return label.isEmpty() ? NOT_SPECIFIED : label;
+    }
+
+    private static List<RollupEntryDto> sortAndLimit(List<RollupEntryDto> entries, Integer top) {
+        List<RollupEntryDto> sorted = new ArrayList<RollupEntryDto>(entries);
+        sorted.sort(LARGEST_FIRST);
+        if (top != null && top > 0 && sorted.size() > top) {
+            return new ArrayList<RollupEntryDto>(sorted.subList(0, top));
+        }
+        return sorted;
+    }
+
+    private static <K> void adjust(ConcurrentHashMap<K, Long> counts, K key, long delta) {
+        if (key == null) {
+            return;
+        }
+        counts.compute(key, (k, existing) -> {
+            long count = (existing != null ? existing : 0L) + delta;
+            return count > 0 ? count : null;
+        });
+    }
+
+    /**
+     * Asset counts of one generation (the live one, or a one-off load before warm-up).
+     */
+    private static final class Counts {
+        final AtomicLong total = new AtomicLong();
+        final ConcurrentHashMap<Long, Long> byFacility = new ConcurrentHashMap<Long, Long>();
+        final ConcurrentHashMap<Long, Long> byCpuSpec = new ConcurrentHashMap<Long, Long>();
+        final ConcurrentHashMap<YearMonth, Long> byMonth = new ConcurrentHashMap<YearMonth, Long>();
+    }
+}
@@ -0,0 +1,387 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetSearchResultDto;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.model.CpuSpecification;
+import org.utj.asman.model.Facility;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+import org.utj.asman.util.AssetMapper;
+import org.utj.asman.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global asset search for the admin panel, backed by in-memory trigram indexes.
+ *
+ * Three indexes are kept, so repeated values are indexed once rather than once per asset:
+ * - asset serials (CPU / Monitor / UPS) -> asset IDs
+ * - facility names and MFL codes -> facility IDs (expanded to that facility's assets)
+ * - CPU model names -> specification IDs (expanded to that specification's assets)
+ *
+ * Indexes are built at startup and updated from AssetChangedEvent / EntityChangedEvent after commit.
+ * Hits are ranked by match quality (exact > prefix > substring) and field (serial > MFL code > name/model),
+ * then newest first. Only the requested page is loaded from the database, in one query.
+ *
+ * Asset IDs are stored as ints to keep posting lists compact.
+ */
+@Service
+public class AssetSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetSearchService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    // Match quality
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    // Field weight (tie-breaker within the same match quality)
+    private static final int SERIAL_WEIGHT = 3;
+    private static final int MFL_CODE_WEIGHT = 2;
+    private static final int NAME_WEIGHT = 1;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private AssetMapper assetMapper;
+
+    private final Map<Integer, AssetDoc> assets = new ConcurrentHashMap<Integer, AssetDoc>();
+    private final TrigramIndex serialIndex = new TrigramIndex();
+
+    private final Map<Integer, FacilityDoc> facilities = new ConcurrentHashMap<Integer, FacilityDoc>();
+    private final TrigramIndex facilityIndex = new TrigramIndex();
+    private final Map<Integer, Set<Integer>> assetsByFacility = new ConcurrentHashMap<Integer, Set<Integer>>();
+
+    private final Map<Integer, String> specModels = new ConcurrentHashMap<Integer, String>();
+    private final TrigramIndex specIndex = new TrigramIndex();
+    private final Map<Integer, Set<Integer>> assetsBySpec = new ConcurrentHashMap<Integer, Set<Integer>>();
+
+    private volatile boolean warmed = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            for (Facility facility : facilityRepository.findAll()) {
+                indexFacility(facility);
+            }
+            for (CpuSpecification spec : cpuSpecRepository.findAll()) {
+                indexSpec(spec);
+            }
+
+            long after = 0L;
+            List<AssetSummaryDto> batch;
+            do {
+                batch = assetRepository.findSummariesAfter(after, null, PageRequest.of(0, WARM_UP_BATCH_SIZE));
+                for (AssetSummaryDto asset : batch) {
+                    indexAsset(asset);
+                    after = asset.getId();
+                }
+            } while (batch.size() == WARM_UP_BATCH_SIZE);
+
+            warmed = true;
+            log.info("Asset search index warmed: {} assets, {} facilities, {} specs, {} serial trigrams in {} ms",
+                    assets.size(), facilities.size(), specModels.size(), serialIndex.gramCount(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Could not build asset search index, falling back to database search", e);
+        }
+    }
+
+    /**
+     * Ranked, paginated search over serials, facility names / MFL codes and CPU models.
+     *
+     * @param query Search term (case-insensitive substring)
+     * @param page 0-based page index
+     * @param size Page size (capped at MAX_PAGE_SIZE)
+     */
+    public AssetSearchResultDto search(String query, int page, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        int pageIndex = Math.max(page, 0);
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+
+        if (q.isEmpty()) {
+            return new AssetSearchResultDto(query, pageIndex, pageSize, 0, Collections.<AssetSummaryDto>emptyList());
+        }
+        if (!warmed) {
+            return searchDatabase(query, q, pageIndex, pageSize);
+        }
+
+        Map<Integer, Integer> scores = new HashMap<Integer, Integer>();
+
+        // 1. Serials
+        int[] serialHits = serialIndex.candidates(q);
+        for (int id : serialHits != null ? toList(serialHits) : new ArrayList<Integer>(assets.keySet())) {
+            AssetDoc doc = assets.get(id);
+            if (doc == null) {
+                continue;
+            }
+            int quality = Math.max(match(doc.cpuSerial, q), Math.max(match(doc.monitorSerial, q), match(doc.upsSerial, q)));
+            mergeScore(scores, id, score(quality, SERIAL_WEIGHT));
+        }
+
+        // 2. Facilities (name / MFL code)
+        int[] facilityHits = facilityIndex.candidates(q);
+        for (int facilityId : facilityHits != null ? toList(facilityHits) : new ArrayList<Integer>(facilities.keySet())) {
+            FacilityDoc doc = facilities.get(facilityId);
+            if (doc == null) {
+                continue;
+            }
+            int best = Math.max(score(match(doc.mflCode, q), MFL_CODE_WEIGHT), score(match(doc.name, q), NAME_WEIGHT));
+            mergeAll(scores, assetsByFacility.get(facilityId), best);
+        }
+
+        // 3. CPU models
+        int[] specHits = specIndex.candidates(q);
+        for (int specId : specHits != null ? toList(specHits) : new ArrayList<Integer>(specModels.keySet())) {
+            mergeAll(scores, assetsBySpec.get(specId), score(match(specModels.get(specId), q), NAME_WEIGHT));
+        }
+
+        // Rank: score desc, then newest (highest ID) first
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<Map.Entry<Integer, Integer>>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Integer.compare(b.getKey(), a.getKey());
+        });
+
+        int from = Math.min(pageIndex * pageSize, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        List<Long> pageIds = new ArrayList<Long>(to - from);
+        for (Map.Entry<Integer, Integer> entry : ranked.subList(from, to)) {
+            pageIds.add(entry.getKey().longValue());
+        }
+
+        return new AssetSearchResultDto(query, pageIndex, pageSize, ranked.size(), loadInOrder(pageIds));
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    // --- Sync ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        if (event.getBefore() != null) {
+            removeAsset(Math.toIntExact(event.getBefore().getId()));
+        }
+        if (event.getAfter() != null) {
+            indexAsset(event.getAfter());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+                for (Long id : event.getEntityIds()) {
+                    removeFacility(Math.toIntExact(id));
+                }
+                if (!event.isDeleted()) {
+                    facilityRepository.findAllById(event.getEntityIds()).forEach(this::indexFacility);
+                }
+                break;
+            case CPU_SPEC:
+                for (Long id : event.getEntityIds()) {
+                    removeSpec(Math.toIntExact(id));
+                }
+                if (!event.isDeleted()) {
+                    cpuSpecRepository.findAllById(event.getEntityIds()).forEach(this::indexSpec);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Index maintenance ---
+
+    private void indexAsset(AssetSummaryDto asset) {
+        int id = Math.toIntExact(asset.getId());
+        AssetDoc doc = new AssetDoc(asset);
+        AssetDoc previous = assets.put(id, doc);
+        if (previous != null) {
+            unindexAsset(id, previous);
+        }
+        serialIndex.add(id, doc.cpuSerial, doc.monitorSerial, doc.upsSerial);
+        if (doc.facilityId != null) {
+            assetsByFacility.computeIfAbsent(doc.facilityId, k -> ConcurrentHashMap.<Integer>newKeySet()).add(id);
+        }
+        if (doc.specId != null) {
+            assetsBySpec.computeIfAbsent(doc.specId, k -> ConcurrentHashMap.<Integer>newKeySet()).add(id);
+        }
+    }
+
+    private void removeAsset(int id) {
+        AssetDoc doc = assets.remove(id);
+        if (doc != null) {
+            unindexAsset(id, doc);
+        }
+    }
+
+    private void unindexAsset(int id, AssetDoc doc) {
+        serialIndex.remove(id, doc.cpuSerial, doc.monitorSerial, doc.upsSerial);
+        if (doc.facilityId != null) {
+            Optional.ofNullable(assetsByFacility.get(doc.facilityId)).ifPresent(set -> set.remove(id));
+        }
+        if (doc.specId != null) {
+            Optional.ofNullable(assetsBySpec.get(doc.specId)).ifPresent(set -> set.remove(id));
+        }
+    }
+
+    private void indexFacility(Facility facility) {
+        int id = Math.toIntExact(facility.getId());
+        FacilityDoc doc = new FacilityDoc(facility.getFacilityName(), facility.getMflCode());
+        facilities.put(id, doc);
+        facilityIndex.add(id, doc.name, doc.mflCode);
+    }
+
+    private void removeFacility(int id) {
+        FacilityDoc doc = facilities.remove(id);
+        if (doc != null) {
+            facilityIndex.remove(id, doc.name, doc.mflCode);
+        }
+    }
+
+    private void indexSpec(CpuSpecification spec) {
+        int id = Math.toIntExact(spec.getId());
+        if (spec.getModel() != null) {
+            specModels.put(id, spec.getModel());
+            specIndex.add(id, spec.getModel());
+        }
+    }
+
+    private void removeSpec(int id) {
+        String model = specModels.remove(id);
+        if (model != null) {
+            specIndex.remove(id, model);
+        }
+    }
+
+    // --- Helpers ---
+
+    private List<AssetSummaryDto> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, AssetSummaryDto> byId = new HashMap<Long, AssetSummaryDto>();
+        for (AssetSummaryDto dto : assetRepository.findSummariesByIdIn(ids)) {
+            byId.put(dto.getId(), dto);
+        }
+        List<AssetSummaryDto> ordered = new ArrayList<AssetSummaryDto>(ids.size());
+        for (Long id : ids) {
+            AssetSummaryDto dto = byId.get(id);
+            if (dto != null) {
+                ordered.add(dto);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Fallback used until the index is built: the original JPQL LIKE search, paginated in memory.
+     */
+    private AssetSearchResultDto searchDatabase(String query, String q, int pageIndex, int pageSize) {
+        List<AssetSummaryDto> all = new ArrayList<AssetSummaryDto>();
+        assetRepository.searchAssets(q).forEach(asset -> all.add(assetMapper.toSummaryDto(asset)));
+        int from = Math.min(pageIndex * pageSize, all.size());
+        int to = Math.min(from + pageSize, all.size());
+        return new AssetSearchResultDto(query, pageIndex, pageSize, all.size(), new ArrayList<AssetSummaryDto>(all.subList(from, to)));
+    }
+
+    // Normalized like TrigramIndex: trimmed and lower-cased, so candidates and match quality agree
+    private static int match(String value, String q) {
+        if (value == null) {
+            return 0;
+        }
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.equals(q)) return EXACT;
+        if (v.startsWith(q)) return PREFIX;
+        if (v.contains(q)) return SUBSTRING;
+        return 0;
+    }
+
+    private static int score(int quality, int weight) {
+        return quality == 0 ? 0 : quality * 10 + weight;
+    }
+
+    private static void mergeScore(Map<Integer, Integer> scores, int id, int score) {
+        if (score > 0) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    private static void mergeAll(Map<Integer, Integer> scores, Set<Integer> ids, int score) {
+        if (ids == null || score <= 0) {
+            return;
+        }
+        for (Integer id : ids) {
+            mergeScore(scores, id, score);
+        }
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<Integer>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static final class AssetDoc {
+        final Integer facilityId;
+        final Integer specId;
+        final String cpuSerial;
+        final String monitorSerial;
+        final String upsSerial;
+
+        AssetDoc(AssetSummaryDto asset) {
+            this.facilityId = asset.getFacilityId() != null ? Math.toIntExact(asset.getFacilityId()) : null;
+            this.specId = asset.getCpuSpecId() != null ? Math.toIntExact(asset.getCpuSpecId()) : null;
+            this.cpuSerial = asset.getCpuSerial();
+            this.monitorSerial = asset.getMonitorSerial();
+            this.upsSerial = asset.getUpsSerial();
+        }
+    }
+
+    private static final class FacilityDoc {
+        final String name;
+        final String mflCode;
+
+        FacilityDoc(String name, String mflCode) {
+            this.name = name;
+            this.mflCode = mflCode;
+        }
+    }
+}
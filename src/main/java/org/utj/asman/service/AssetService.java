@@ -1,24 +1,71 @@
 package org.utj.asman.service;
 
 import org.utj.asman.dto.AssetEntryDTO;
+import org.utj.asman.dto.AssetRowDto;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.AssetTransferRequestDto;
+import org.utj.asman.dto.AssetTransferResultDto;
+import org.utj.asman.dto.CursorPageDto;
+import org.utj.asman.dto.DataTablePageDto;
+import org.utj.asman.event.AssetChangedEvent;
 import org.utj.asman.model.*;
 import org.utj.asman.repository.*;
+import org.utj.asman.service.SerialRegistryService.SerialType;
+import org.utj.asman.util.AssetMapper;
+import org.utj.asman.util.DataTableRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AssetService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // IDs per IN-list in bulk transfers (keeps statements well below driver / optimizer limits)
+    private static final int TRANSFER_CHUNK_SIZE = 1000;
+
+    // Asset table columns that can be sorted, mapped to query properties (f = facility, cs = CPU spec)
+    private static final Map<String, String> TABLE_SORTS = new HashMap<String, String>();
+
+    static {
+        TABLE_SORTS.put("facilityName", "f.facilityName");
+        TABLE_SORTS.put("cpuSerial", "cpuSerial");
+        TABLE_SORTS.put("cpuModel", "cs.model");
+        TABLE_SORTS.put("processor", "cs.processor");
+        TABLE_SORTS.put("monitorModel", "monitorModel");
+        TABLE_SORTS.put("upsModel", "upsModel");
+    }
+
     @Autowired
     private AssetRecordRepository assetRepository;
     @Autowired
     private FacilityRepository facilityRepository;
     @Autowired
     private CpuSpecificationRepository cpuSpecRepository;
+    @Autowired
+    private SerialRegistryService serialRegistry;
+    @Autowired
+    private ModelCatalogService modelCatalog;
+    @Autowired
+    private AssetMapper assetMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ChangeJournalService changeJournal;
+    @Autowired
+    private AssetRollupService rollupService;
 
     // --- Read Operations ---
     public List<Facility> getAllFacilities() {
@@ -32,13 +79,68 @@ public class AssetService {
 
     public List<AssetRecord> getAssetRecords(Long facilityId) {
         if (facilityId != null) {
-            return assetRepository.findByFacilityId(facilityId);
+            return assetRepository.findWithRelationsByFacilityId(facilityId);
         }
-        return assetRepository.findAll();
+        return assetRepository.findAllWithRelations();
+    }
+
+    /**
+     * Keyset-paginated asset listing backed by a DTO projection.
+     * Memory per call is bounded by the page size regardless of table size.
+     *
+     * @param facilityId Optional facility filter
+     * @param after ID of the last asset the client has seen (null for the first page)
+     * @param limit Page size (defaults to DEFAULT_PAGE_SIZE, capped at MAX_PAGE_SIZE)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<AssetSummaryDto> getAssetPage(Long facilityId, Long after, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        long cursor = (after == null || after < 0) ? 0L : after;
+
+        // Fetch one extra row to know whether another page exists
+        List<AssetSummaryDto> rows = assetRepository.findSummariesAfter(cursor, facilityId,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AssetSummaryDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = items.isEmpty() ? null : items.get(items.size() - 1).getId();
+
+        return new CursorPageDto<AssetSummaryDto>(items, nextCursor, hasMore, pageSize);
+    }
+
+    /**
+     * One page of the admin asset table (DataTables server-side protocol).
+     * Unfiltered totals come from the in-memory rollups; the database only counts rows when a search term is given.
+     *
+     * @param request Paging, sort and search box parameters
+     * @param facilityId Optional facility filter
+     */
+    @Transactional(readOnly = true)
+    public DataTablePageDto<AssetRowDto> getAssetTable(DataTableRequest request, Long facilityId) {
+        String term = request.getSearchPattern();
+
+        long total;
+        if (!rollupService.isWarmed()) {
+            total = assetRepository.countTableRows(null, facilityId);
+        } else if (facilityId == null) {
+            total = rollupService.getTotalAssets();
+        } else {
+            Long count = rollupService.getCountsByFacility().get(facilityId);
+            total = count != null ? count : 0L;
+        }
+        long filtered = term == null ? total : assetRepository.countTableRows(term, facilityId);
+
+        List<AssetRowDto> rows = filtered == 0 ? Collections.<AssetRowDto>emptyList()
+                : assetRepository.findTableRows(term, facilityId, request.toPageable(TABLE_SORTS, "id", false));
+        return new DataTablePageDto<AssetRowDto>(request.getDraw(), total, filtered, rows);
     }
 
     public List<String> searchModels(String type, String query) {
         if (type == null || query == null) return Collections.emptyList();
+        // Served from memory once the catalog is warm; the LIKE queries are only a startup fallback
+        if (modelCatalog.isWarmed()) {
+            return modelCatalog.suggest(type, query, ModelCatalogService.DEFAULT_SUGGESTION_LIMIT);
+        }
         if ("monitor".equalsIgnoreCase(type)) return assetRepository.searchMonitorModels(query);
         if ("ups".equalsIgnoreCase(type)) return assetRepository.searchUpsModels(query);
         return Collections.emptyList();
@@ -61,13 +163,17 @@ public class AssetService {
 
         mapDtoToEntity(request, newRecord);
 
-        return assetRepository.save(newRecord);
+        AssetRecord saved = assetRepository.save(newRecord);
+        changeJournal.record(ChangeJournalEntry.EntityType.ASSET, saved.getId(), ChangeJournalEntry.Operation.UPSERT);
+        eventPublisher.publishEvent(AssetChangedEvent.created(assetMapper.toSummaryDto(saved)));
+        return saved;
     }
 
     @Transactional
     public AssetRecord updateAsset(Long id, AssetEntryDTO request) {
         AssetRecord record = assetRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Record not found"));
+        AssetSummaryDto before = assetMapper.toSummaryDto(record);
 
         // Update facility if changed
         if (!record.getFacility().getId().equals(request.getFacilityId())) {
@@ -83,21 +189,97 @@ public class AssetService {
         }
 
         // Check if the NEW serial is already taken by ANOTHER record
-        if (assetRepository.existsByCpuSerialAndIdNot(request.getCpuSerial(), id)) {
+        // (answered from the in-memory serial registry, blank serials are never taken)
+        if (serialRegistry.isTaken(SerialType.CPU, request.getCpuSerial(), id)) {
             throw new IllegalArgumentException("CPU Serial " + request.getCpuSerial() + " is already assigned to another asset.");
         }
-        if (request.getMonitorSerial() != null && !request.getMonitorSerial().isEmpty() &&
-                assetRepository.existsByMonitorSerialAndIdNot(request.getMonitorSerial(), id)) {
+        if (serialRegistry.isTaken(SerialType.MONITOR, request.getMonitorSerial(), id)) {
             throw new IllegalArgumentException("Monitor Serial " + request.getMonitorSerial() + " is already assigned to another asset.");
         }
-        // Only check UPS serial if a non-null value is provided
-        if (request.getUpsSerial() != null && !request.getUpsSerial().isEmpty() &&
-                assetRepository.existsByUpsSerialAndIdNot(request.getUpsSerial(), id)) {
+        if (serialRegistry.isTaken(SerialType.UPS, request.getUpsSerial(), id)) {
             throw new IllegalArgumentException("UPS Serial " + request.getUpsSerial() + " is already assigned to another asset.");
         }
         
         mapDtoToEntity(request, record);
-        return assetRepository.save(record);
+        AssetRecord saved = assetRepository.save(record);
+        changeJournal.record(ChangeJournalEntry.EntityType.ASSET, saved.getId(), ChangeJournalEntry.Operation.UPSERT);
+        eventPublisher.publishEvent(AssetChangedEvent.updated(before, assetMapper.toSummaryDto(saved)));
+        return saved;
+    }
+
+    /**
+     * Move many assets to another facility at once.
+     * Validates the facilities once, loads all affected assets as summaries, and updates
+     * them with one UPDATE per TRANSFER_CHUNK_SIZE IDs. Serials are untouched, so no
+     * uniqueness checks are needed. Listeners still get one AssetChangedEvent per asset.
+     *
+     * @param request Either assetIds or sourceFacilityId, plus targetFacilityId
+     * @return Counts of moved, unchanged and unknown assets
+     */
+    @Transactional
+    public AssetTransferResultDto transferAssets(AssetTransferRequestDto request) {
+        boolean byIds = request.getAssetIds() != null && !request.getAssetIds().isEmpty();
+        if (request.getTargetFacilityId() == null) {
+            throw new IllegalArgumentException("Target facility ID is required");
+        }
+        if (byIds == (request.getSourceFacilityId() != null)) {
+            throw new IllegalArgumentException("Provide either assetIds or sourceFacilityId");
+        }
+        Facility target = facilityRepository.findById(request.getTargetFacilityId())
+                .orElseThrow(() -> new IllegalArgumentException("Target facility not found"));
+
+        AssetTransferResultDto result = new AssetTransferResultDto();
+        result.setTargetFacilityId(target.getId());
+
+        // 1. Load the current state of every affected asset (one query per chunk)
+        List<AssetSummaryDto> found = new ArrayList<AssetSummaryDto>();
+        if (byIds) {
+            List<Long> ids = new ArrayList<Long>(new LinkedHashSet<Long>(request.getAssetIds()));
+            result.setRequested(ids.size());
+            Set<Long> missing = new LinkedHashSet<Long>(ids);
+            for (int i = 0; i < ids.size(); i += TRANSFER_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(i, Math.min(i + TRANSFER_CHUNK_SIZE, ids.size()));
+                for (AssetSummaryDto asset : assetRepository.findSummariesByIdIn(chunk)) {
+                    found.add(asset);
+                    missing.remove(asset.getId());
+                }
+            }
+            result.getNotFoundIds().addAll(missing);
+        } else {
+            if (!facilityRepository.existsById(request.getSourceFacilityId())) {
+                throw new IllegalArgumentException("Source facility not found");
+            }
+            found = assetRepository.findSummariesByFacilityId(request.getSourceFacilityId());
+            result.setRequested(found.size());
+        }
+
+        List<AssetSummaryDto> moving = new ArrayList<AssetSummaryDto>(found.size());
+        for (AssetSummaryDto asset : found) {
+            if (target.getId().equals(asset.getFacilityId())) {
+                result.setAlreadyAtTarget(result.getAlreadyAtTarget() + 1);
+            } else {
+                moving.add(asset);
+            }
+        }
+
+        // 2. Set-based update
+        List<Long> movingIds = new ArrayList<Long>(moving.size());
+        for (AssetSummaryDto asset : moving) {
+            movingIds.add(asset.getId());
+        }
+        int transferred = 0;
+        for (int i = 0; i < movingIds.size(); i += TRANSFER_CHUNK_SIZE) {
+            transferred += assetRepository.updateFacilityByIdIn(
+                    movingIds.subList(i, Math.min(i + TRANSFER_CHUNK_SIZE, movingIds.size())), target);
+        }
+        result.setTransferred(transferred);
+
+        // 3. Journal and events, exactly as for single updates
+        changeJournal.recordAll(ChangeJournalEntry.EntityType.ASSET, movingIds, ChangeJournalEntry.Operation.UPSERT);
+        for (AssetSummaryDto before : moving) {
+            eventPublisher.publishEvent(AssetChangedEvent.updated(before, assetMapper.withFacility(before, target)));
+        }
+        return result;
     }
 
     private void mapDtoToEntity(AssetEntryDTO dto, AssetRecord entity) {
@@ -111,15 +293,13 @@ public class AssetService {
     }
 
     private void validateSerials(AssetEntryDTO request) {
-        if (assetRepository.existsByCpuSerial(request.getCpuSerial())) {
+        if (serialRegistry.isTaken(SerialType.CPU, request.getCpuSerial(), null)) {
             throw new IllegalArgumentException("CPU Serial exists: " + request.getCpuSerial());
         }
-        if (request.getMonitorSerial() != null && !request.getMonitorSerial().isEmpty() &&
-                assetRepository.existsByMonitorSerial(request.getMonitorSerial())) {
+        if (serialRegistry.isTaken(SerialType.MONITOR, request.getMonitorSerial(), null)) {
             throw new IllegalArgumentException("Monitor Serial exists: " + request.getMonitorSerial());
         }
-        if (request.getUpsSerial() != null && !request.getUpsSerial().isEmpty() &&
-                assetRepository.existsByUpsSerial(request.getUpsSerial())) {
+        if (serialRegistry.isTaken(SerialType.UPS, request.getUpsSerial(), null)) {
             throw new IllegalArgumentException("UPS Serial exists: " + request.getUpsSerial());
         }
     }
@@ -128,6 +308,9 @@ public class AssetService {
     public void deleteAsset(Long id) {
         AssetRecord record = assetRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Asset not found with ID: " + id));
+        AssetSummaryDto before = assetMapper.toSummaryDto(record);
         assetRepository.delete(record);
+        changeJournal.record(ChangeJournalEntry.EntityType.ASSET, id, ChangeJournalEntry.Operation.DELETE);
+        eventPublisher.publishEvent(AssetChangedEvent.deleted(before));
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.utj.asman.dto.ChangesDto;
+import org.utj.asman.model.ChangeJournalEntry;
+import org.utj.asman.model.ChangeJournalEntry.EntityType;
+import org.utj.asman.model.ChangeJournalEntry.Operation;
+import org.utj.asman.model.ChangeJournalSequence;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.ChangeJournalRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only change journal behind the mobile delta sync (GET /api/v1/changes).
+ *
+ * Writers call record()/recordAll() inside their own transaction, so a journal entry
+ * exists if and only if the change committed. Readers page through the journal by
+ * version (the entry ID) and receive the current state of upserted rows plus tombstones.
+ *
+ * Versions come from the row-locked ChangeJournalSequence counter. A writer holds the counter's
+ * row lock from record() until it commits or rolls back, so versions are gap-free and commit in
+ * order: every reader sees a contiguous prefix of the journal and can never skip a late commit.
+ */
+@Service
+public class ChangeJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeJournalService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 2000;
+
+    private static final String INSERT_SQL = "INSERT INTO change_journal " +
+            "(id, entity_type, entity_id, operation, changed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String RESERVE_SQL = "UPDATE change_journal_sequence " +
+            "SET last_version = last_version + ? WHERE id = ?";
+
+    @Autowired
+    private ChangeJournalRepository journalRepository;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Create the version counter on first start, continuing after any journal entries already present.
+     */
+    @PostConstruct
+    public void initSequence() {
+        jdbcTemplate.update("INSERT INTO change_journal_sequence (id, last_version) " +
+                "SELECT ?, COALESCE(MAX(id), 0) FROM change_journal " +
+                "WHERE NOT EXISTS (SELECT 1 FROM change_journal_sequence WHERE id = ?)",
+                ChangeJournalSequence.ID, ChangeJournalSequence.ID);
+    }
+
+    /**
+     * Seed the journal with every existing row the first time the application starts
+     * with an empty journal, so a client syncing from version 0 gets a full snapshot.
+     * Reference data is journaled before the assets that point to it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        try {
+            if (journalRepository.count() > 0) {
+                return;
+            }
+            int[] counts = new TransactionTemplate(transactionManager).execute(status -> new int[] {
+                    seedFrom(EntityType.FACILITY, "facilities"),
+                    seedFrom(EntityType.CPU_SPEC, "cpu_specifications"),
+                    seedFrom(EntityType.ASSET, "asset_records")
+            });
+            int facilities = counts[0];
+            int specs = counts[1];
+            int assets = counts[2];
+            log.info("Change journal seeded: {} facilities, {} CPU specs, {} assets", facilities, specs, assets);
+        } catch (Exception e) {
+            log.error("Could not seed change journal", e);
+        }
+    }
+
+    /**
+     * Append one entry. Must run inside the transaction that made the change, preferably as its last write:
+     * the version counter stays locked until that transaction ends.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(EntityType entityType, Long entityId, Operation operation) {
+        recordAll(entityType, Collections.singletonList(entityId), operation);
+    }
+
+    /**
+     * Append one entry per ID with a single JDBC batch. Must run inside the transaction that made the changes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(EntityType entityType, Collection<Long> entityIds, Operation operation) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        long version = reserveVersions(entityIds.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<Object[]>(entityIds.size());
+        for (Long id : entityIds) {
+            batchArgs.add(new Object[] { version++, entityType.name(), id, operation.name(), now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+    /**
+     * Reserve count consecutive versions and return the first one.
+     * The UPDATE locks the counter row until the calling transaction ends.
+     */
+    private long reserveVersions(int count) {
+        if (jdbcTemplate.update(RESERVE_SQL, count, ChangeJournalSequence.ID) != 1) {
+            throw new IllegalStateException("Change journal sequence is not initialized");
+        }
+        Long last = jdbcTemplate.queryForObject("SELECT last_version FROM change_journal_sequence WHERE id = ?",
+                Long.class, ChangeJournalSequence.ID);
+        return last - count + 1;
+    }
+
+    /**
+     * Everything that changed after the given version.
+     *
+     * Several entries for the same row within a page collapse to the latest one;
+     * upserted rows are returned in their current state. Whenever hasMore is set,
+     * the returned version is past the requested one, so paging always makes progress.
+     *
+     * @param since Last version the client has applied (0 or null for a full sync)
+     * @param limit Maximum number of journal entries to consume (defaults to DEFAULT_PAGE_SIZE, capped at MAX_PAGE_SIZE)
+     */
+    @Transactional(readOnly = true)
+    public ChangesDto getChanges(Long since, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        long from = (since == null || since < 0) ? 0L : since;
+
+        List<ChangeJournalEntry> entries = journalRepository.findByIdGreaterThanOrderByIdAsc(
+                from, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
+        }
+
+        // Latest operation per row, in journal order
+        Map<EntityType, Map<Long, Operation>> latest = new LinkedHashMap<EntityType, Map<Long, Operation>>();
+        for (EntityType type : EntityType.values()) {
+            latest.put(type, new LinkedHashMap<Long, Operation>());
+        }
+        long version = from;
+        for (ChangeJournalEntry entry : entries) {
+            Map<Long, Operation> ops = latest.get(entry.getEntityType());
+            ops.remove(entry.getEntityId());
+            ops.put(entry.getEntityId(), entry.getOperation());
+            version = entry.getId();
+        }
+
+        ChangesDto changes = new ChangesDto();
+        changes.setSince(from);
+        changes.setVersion(version);
+        changes.setHasMore(hasMore);
+
+        List<Long> upsertedFacilities = split(latest.get(EntityType.FACILITY), changes.getDeletedFacilityIds());
+        List<Long> upsertedSpecs = split(latest.get(EntityType.CPU_SPEC), changes.getDeletedCpuSpecIds());
+        List<Long> upsertedAssets = split(latest.get(EntityType.ASSET), changes.getDeletedAssetIds());
+
+        // Rows deleted after this page are simply missing here; their tombstones come on a later page
+        if (!upsertedFacilities.isEmpty()) {
+            changes.getFacilities().addAll(facilityRepository.findAllById(upsertedFacilities));
+        }
+        if (!upsertedSpecs.isEmpty()) {
+            changes.getCpuSpecs().addAll(cpuSpecRepository.findAllById(upsertedSpecs));
+        }
+        if (!upsertedAssets.isEmpty()) {
+            changes.getAssets().addAll(assetRepository.findSummariesByIdIn(upsertedAssets));
+        }
+        return changes;
+    }
+
+    private int seedFrom(EntityType entityType, String table) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+        recordAll(entityType, ids, Operation.UPSERT);
+        return ids.size();
+    }
+
+    /**
+     * Returns the upserted IDs and adds the deleted ones to the tombstone list.
+     */
+    private static List<Long> split(Map<Long, Operation> ops, List<Long> deleted) {
+        List<Long> upserted = new ArrayList<Long>();
+        for (Map.Entry<Long, Operation> op : ops.entrySet()) {
+            if (op.getValue() == Operation.DELETE) {
+                deleted.add(op.getKey());
+            } else {
+                upserted.add(op.getKey());
+            }
+        }
+        return upserted;
+    }
+}
@@ -1,7 +1,10 @@
 package org.utj.asman.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.event.EntityChangedEvent.EntityType;
 import org.utj.asman.model.County;
 import org.utj.asman.repository.CountyRepository;
 
@@ -14,6 +17,9 @@ public class CountyService {
     @Autowired
     private CountyRepository countyRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<County> getAllCounties() {
         return countyRepository.findAll();
     }
@@ -29,13 +35,19 @@ public class CountyService {
                     .orElseThrow(() -> new RuntimeException("County not found"));
             existing.setCountyName(county.getCountyName());
             existing.setCountyCode(county.getCountyCode());
-            return countyRepository.save(existing);
+            return publishSaved(countyRepository.save(existing));
         }
         // Otherwise it's a new county
-        return countyRepository.save(county);
+        return publishSaved(countyRepository.save(county));
     }
 
     public void deleteCounty(Long id) {
         countyRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(EntityType.COUNTY, id));
+    }
+
+    private County publishSaved(County saved) {
+        eventPublisher.publishEvent(EntityChangedEvent.saved(EntityType.COUNTY, saved.getId()));
+        return saved;
     }
 }
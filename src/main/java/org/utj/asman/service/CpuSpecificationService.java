@@ -1,18 +1,50 @@
 package org.utj.asman.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.utj.asman.dto.DataTablePageDto;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.event.EntityChangedEvent.EntityType;
+import org.utj.asman.model.ChangeJournalEntry;
 import org.utj.asman.model.CpuSpecification;
 import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.util.DataTableRequest;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Transactional
 public class CpuSpecificationService {
+
+    // Specification table columns that can be sorted, mapped to entity properties
+    private static final Map<String, String> TABLE_SORTS = new HashMap<String, String>();
+
+    static {
+        TABLE_SORTS.put("id", "id");
+        TABLE_SORTS.put("manufacturer", "manufacturer");
+        TABLE_SORTS.put("model", "model");
+        TABLE_SORTS.put("processor", "processor");
+        TABLE_SORTS.put("memory", "memory");
+        TABLE_SORTS.put("hardDisk", "hardDisk");
+        TABLE_SORTS.put("purchaseDate", "purchaseDate");
+        TABLE_SORTS.put("supplier", "supplier");
+    }
+
     @Autowired
     private final CpuSpecificationRepository cpuSpecificationRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeJournalService changeJournal;
+
     public CpuSpecificationService(CpuSpecificationRepository cpuSpecificationRepository) {
         this.cpuSpecificationRepository = cpuSpecificationRepository;
     }
@@ -21,6 +53,18 @@ public class CpuSpecificationService {
         return cpuSpecificationRepository.findAll();
     }
 
+    /**
+     * One page of the admin specification table (DataTables server-side protocol).
+     */
+    @Transactional(readOnly = true)
+    public DataTablePageDto<CpuSpecification> getSpecTable(DataTableRequest request) {
+        long total = cpuSpecificationRepository.count();
+        Page<CpuSpecification> page = cpuSpecificationRepository.search(request.getSearchPattern(),
+                request.toPageable(TABLE_SORTS, "id", false));
+        return new DataTablePageDto<CpuSpecification>(request.getDraw(), total, page.getTotalElements(),
+                page.getContent());
+    }
+
     public Optional<CpuSpecification> getSpecificationById(Long id) {
         return cpuSpecificationRepository.findById(id);
     }
@@ -46,15 +90,20 @@ public class CpuSpecificationService {
             newSpec.setProcessor(processor);
             newSpec.setMemory(memory);
             newSpec.setHardDisk(hardDisk);
-            return cpuSpecificationRepository.save(newSpec);
+            return saveCpuSpec(newSpec);
         }
     }
 
     public CpuSpecification saveCpuSpec(CpuSpecification spec) {
-        return cpuSpecificationRepository.save(spec);
+        CpuSpecification saved = cpuSpecificationRepository.save(spec);
+        changeJournal.record(ChangeJournalEntry.EntityType.CPU_SPEC, saved.getId(), ChangeJournalEntry.Operation.UPSERT);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(EntityType.CPU_SPEC, saved.getId()));
+        return saved;
     }
 
     public void deleteCpuSpec(Long id) {
         cpuSpecificationRepository.deleteById(id);
+        changeJournal.record(ChangeJournalEntry.EntityType.CPU_SPEC, id, ChangeJournalEntry.Operation.DELETE);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(EntityType.CPU_SPEC, id));
     }
 }
\ No newline at end of file
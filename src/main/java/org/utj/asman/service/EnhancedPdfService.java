@@ -1,8 +1,13 @@
 package org.utj.asman.service;
 
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.context.Context;
@@ -13,18 +18,39 @@ import org.utj.asman.dto.FacilityResponseDto;
 import org.utj.asman.dto.ReceiptPdfDto;
 import org.utj.asman.model.AssetRecord;
 import org.utj.asman.model.Facility;
-import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.utj.asman.util.FacilityMapper;
+import org.utj.asman.util.PdfRenderingEngine;
 
+import java.awt.Color;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EnhancedPdfService {
 
     private static final Logger log = LoggerFactory.getLogger(EnhancedPdfService.class);
 
+    private static final String RECEIPT_TEMPLATE = "pdf/receipt";
+    private static final String ASSIGNMENT_FORM_TEMPLATE = "pdf/assignment_form";
+    private static final String BULK_TEMPLATE = "pdf/assignment_forms_bulk";
+
+    // Forms per parallel chunk: large enough to amortise renderer setup, small enough to spread over the cores
+    private static final int BULK_CHUNK_SIZE = 10;
+
+    // Private work directory for the parts of chunked bulk renders
+    private static final String PART_DIRECTORY = "pdf-parts";
+
+    // Same place and colour as the @bottom-center footer of the bulk template (15mm page margin)
+    private static final float PAGE_NUMBER_BASELINE = 18f;
+    private static final Color PAGE_NUMBER_COLOR = new Color(0x44, 0x44, 0x44);
+
     @Autowired
     private SpringTemplateEngine templateEngine;
 
@@ -37,6 +63,20 @@ public class EnhancedPdfService {
     @Autowired
     private FacilityService facilityService;
 
+    @Autowired
+    private FacilityMapper facilityMapper;
+
+    @Autowired
+    private PdfCacheService pdfCache;
+
+    /**
+     * Pays the renderer's one-off start-up cost before the first user asks for a PDF.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpRenderer() {
+        PdfRenderingEngine.getInstance().warmUp();
+    }
+
     /**
      * Generate Receipt PDF (Image 1 style)
      * NOW WITH DTO PATTERN - NO MORE LAZY INITIALIZATION ERRORS!
@@ -53,7 +93,7 @@ public class EnhancedPdfService {
             Context context = new Context();
             context.setVariable("receipt", dto);
 
-            String htmlContent = templateEngine.process("pdf/receipt", context);
+            String htmlContent = templateEngine.process(RECEIPT_TEMPLATE, context);
 
             return renderPdf(htmlContent);
 
@@ -86,7 +126,7 @@ public class EnhancedPdfService {
             Context context = new Context();
             context.setVariable("form", dto);
 
-            String htmlContent = templateEngine.process("pdf/assignment_form", context);
+            String htmlContent = templateEngine.process(ASSIGNMENT_FORM_TEMPLATE, context);
 
             return renderPdf(htmlContent);
 
@@ -97,22 +137,81 @@ public class EnhancedPdfService {
     }
 
     /**
-     * Generate multiple assignment forms for a facility
+     * Receipt PDF for a facility, served from the PDF cache.
+     * Only rendered when the facility, its assets, the settings or the logos changed since the last request.
+     *
+     * @return The cached document, opened for reading; the caller must close it
+     */
+    @Transactional(readOnly = true)
+    public FileChannel openReceiptPdf(Long facilityId, List<AssetRecord> assets) {
+        FacilityResponseDto facilityDto = facilityService.getFacilityDtoById(facilityId)
+                .orElseThrow(() -> new RuntimeException("Facility not found with ID: " + facilityId));
+        ReceiptPdfDto dto = buildReceiptDto(facilityDto, assets);
+
+        // generatedDate is not printed, so it must not make every request a cache miss
+        String key = pdfCache.keyFor(RECEIPT_TEMPLATE, dto,
+                Arrays.asList(dto.getLogoMain(), dto.getLogoPartner1(), dto.getLogoPartner2()), "generatedDate");
+        return pdfCache.getOrRender(key, Arrays.asList(PdfCacheService.facilityTag(facilityId)),
+                out -> renderPdf(render(RECEIPT_TEMPLATE, "receipt", dto), out));
+    }
+
+    /**
+     * Assignment form PDF for a single asset, served from the PDF cache.
+     *
+     * @return The cached document, opened for reading; the caller must close it
+     */
+    @Transactional(readOnly = true)
+    public FileChannel openAssignmentFormPdf(AssetRecord asset) {
+        AssignmentFormPdfDto dto = buildAssignmentFormDto(asset);
+
+        // issueDate (today) is printed, so the cached form changes daily
+        String key = pdfCache.keyFor(ASSIGNMENT_FORM_TEMPLATE, dto,
+                Arrays.asList(dto.getLogoMain(), dto.getLogoPartner1(), dto.getLogoPartner2()));
+        List<String> tags = new ArrayList<String>();
+        tags.add(PdfCacheService.assetTag(asset.getId()));
+        if (asset.getFacility() != null) {
+            tags.add(PdfCacheService.facilityTag(asset.getFacility().getId()));
+        }
+        return pdfCache.getOrRender(key, tags, out -> renderPdf(render(ASSIGNMENT_FORM_TEMPLATE, "form", dto), out));
+    }
+
+    /**
+     * Generate multiple assignment forms for a facility.
+     * The HTML is built now, inside the transaction; the PDF is rendered when the returned writer
+     * is called, straight into the caller's stream.
      */
     @Transactional(readOnly = true)
-    public ByteArrayOutputStream generateBulkAssignmentForms(List<AssetRecord> assets) {
+    public PdfRenderingEngine.PdfWriter prepareBulkAssignmentForms(List<AssetRecord> assets) {
+        return prepareBulkAssignmentForms(assets, null);
+    }
+
+    /**
+     * Same as {@link #prepareBulkAssignmentForms(List)}, reporting pages to the listener while the PDF is written.
+     * Facilities with more than BULK_CHUNK_SIZE assets are rendered in chunks in parallel and merged in order.
+     */
+    @Transactional(readOnly = true)
+    public PdfRenderingEngine.PdfWriter prepareBulkAssignmentForms(List<AssetRecord> assets,
+            PdfRenderingEngine.ProgressListener listener) {
         try {
+            Map<String, String> settings = settingService.getSettingsMap();
             List<AssignmentFormPdfDto> forms = new ArrayList<AssignmentFormPdfDto>();
             for (AssetRecord asset : assets) {
-                forms.add(buildAssignmentFormDto(asset));
+                forms.add(buildAssignmentFormDto(asset, settings));
             }
 
-            Context context = new Context();
-            context.setVariable("forms", forms);
-
-            String htmlContent = templateEngine.process("pdf/assignment_forms_bulk", context);
+            if (forms.size() <= BULK_CHUNK_SIZE) {
+                String htmlContent = renderBulkChunk(forms, 0, forms.size(), false);
+                return out -> PdfRenderingEngine.getInstance().render(htmlContent, out, listener);
+            }
 
-            return renderPdf(htmlContent);
+            List<String> chunks = new ArrayList<String>();
+            for (int from = 0; from < forms.size(); from += BULK_CHUNK_SIZE) {
+                List<AssignmentFormPdfDto> chunk = forms.subList(from, Math.min(from + BULK_CHUNK_SIZE, forms.size()));
+                chunks.add(renderBulkChunk(chunk, from, forms.size(), true));
+            }
+            Path partDirectory = fileStorageService.getPrivateWorkDirectory(PART_DIRECTORY);
+            return out -> PdfRenderingEngine.getInstance().renderMerged(chunks, partDirectory, out, listener,
+                    this::stampPageNumber);
 
         } catch (Exception e) {
             log.error("Error generating bulk assignment forms PDF", e);
@@ -120,6 +219,36 @@ public class EnhancedPdfService {
         }
     }
 
+    /**
+     * HTML for a run of forms; offset and total keep the per-form "Page x of y" footers counting across chunks.
+     */
+    private String renderBulkChunk(List<AssignmentFormPdfDto> forms, int formOffset, int formTotal,
+            boolean pageNumbersStamped) {
+        Context context = new Context();
+        context.setVariable("forms", forms);
+        context.setVariable("formOffset", formOffset);
+        context.setVariable("formTotal", formTotal);
+        context.setVariable("pageNumbersStamped", pageNumbersStamped);
+        return templateEngine.process(BULK_TEMPLATE, context);
+    }
+
+    /**
+     * Replaces the template's CSS page footer, whose counters would restart in every chunk.
+     */
+    private void stampPageNumber(PdfContentByte canvas, Rectangle pageSize, int pageNumber, int pageCount) {
+        try {
+            BaseFont font = BaseFont.createFont(BaseFont.TIMES_ROMAN, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            canvas.beginText();
+            canvas.setFontAndSize(font, 10);
+            canvas.setColorFill(PAGE_NUMBER_COLOR);
+            canvas.showTextAligned(PdfContentByte.ALIGN_CENTER, "Page " + pageNumber + " of " + pageCount,
+                    pageSize.getWidth() / 2, PAGE_NUMBER_BASELINE, 0);
+            canvas.endText();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to stamp page number", e);
+        }
+    }
+
     /**
      * Build ReceiptPdfDto from FacilityResponseDto (DTO) and assets
      * NO MORE LAZY INITIALIZATION ERRORS - All data is already loaded in the DTO!
@@ -177,6 +306,13 @@ public class EnhancedPdfService {
      * Uses @Transactional to ensure lazy-loaded relationships are available
      */
     private AssignmentFormPdfDto buildAssignmentFormDto(AssetRecord asset) {
+        return buildAssignmentFormDto(asset, settingService.getSettingsMap());
+    }
+
+    /**
+     * Builds one form from settings read once per document, so bulk forms do not query settings per asset.
+     */
+    private AssignmentFormPdfDto buildAssignmentFormDto(AssetRecord asset, Map<String, String> settings) {
         AssignmentFormPdfDto dto = new AssignmentFormPdfDto();
 
         // Asset details with null safety
@@ -210,14 +346,11 @@ public class EnhancedPdfService {
 
         // Facility info with null safety - access within transaction
         if (asset.getFacility() != null) {
-            // If you have FacilityService, use DTO approach here too
+            // Map the facility already loaded with the asset (no extra lookup per form)
             if (asset.getFacility().getId() != null) {
-                FacilityResponseDto facilityDto = facilityService.getFacilityDtoById(asset.getFacility().getId())
-                        .orElse(null);
-                if (facilityDto != null) {
-                    dto.setFacilityName(facilityDto.getFacilityName());
-                    dto.setDesignation(facilityDto.getFacilityName());
-                }
+                FacilityResponseDto facilityDto = facilityMapper.toResponseDto(asset.getFacility());
+                dto.setFacilityName(facilityDto.getFacilityName());
+                dto.setDesignation(facilityDto.getFacilityName());
             } else {
                 // Fallback to direct access (within transaction, so it's safe)
                 dto.setFacilityName(asset.getFacility().getFacilityName() != null
@@ -230,13 +363,13 @@ public class EnhancedPdfService {
         }
 
         // Issued by (from settings or hardcoded)
-        dto.setIssuedByName(settingService.getSettingValue("issued_by_name", "Dr. Moses Kitheka"));
-        dto.setIssuedByDesignation(settingService.getSettingValue("issued_by_designation", "Chief of Party"));
+        dto.setIssuedByName(settingValue(settings, "issued_by_name", "Dr. Moses Kitheka"));
+        dto.setIssuedByDesignation(settingValue(settings, "issued_by_designation", "Chief of Party"));
 
         // Logos
-        dto.setLogoMain(getLogoPath("logo_main"));
-        dto.setLogoPartner1(getLogoPath("logo_partner1"));
-        dto.setLogoPartner2(getLogoPath("logo_partner2"));
+        dto.setLogoMain(resolveLogoPath("logo_main", settings.get("logo_main")));
+        dto.setLogoPartner1(resolveLogoPath("logo_partner1", settings.get("logo_partner1")));
+        dto.setLogoPartner2(resolveLogoPath("logo_partner2", settings.get("logo_partner2")));
 
         return dto;
     }
@@ -249,7 +382,10 @@ public class EnhancedPdfService {
             return null;
         }
 
-        String fileName = settingService.getSettingValue(key);
+        return resolveLogoPath(key, settingService.getSettingValue(key));
+    }
+
+    private String resolveLogoPath(String key, String fileName) {
         if (fileName != null && !fileName.isEmpty()) {
             try {
                 File file = new File(fileStorageService.getStorageDirectory().toFile(), fileName);
@@ -265,17 +401,27 @@ public class EnhancedPdfService {
         return null;
     }
 
+    private static String settingValue(Map<String, String> settings, String key, String defaultValue) {
+        String value = settings.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    private String render(String template, String variable, Object dto) {
+        Context context = new Context();
+        context.setVariable(variable, dto);
+        return templateEngine.process(template, context);
+    }
+
     /**
      * Render HTML to PDF using Flying Saucer
      */
     private ByteArrayOutputStream renderPdf(String htmlContent) throws Exception {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        ITextRenderer renderer = new ITextRenderer();
-        renderer.setDocumentFromString(htmlContent);
-        renderer.layout();
-        renderer.createPDF(outputStream);
-
+        renderPdf(htmlContent, outputStream);
         return outputStream;
     }
+
+    private void renderPdf(String htmlContent, OutputStream outputStream) throws Exception {
+        PdfRenderingEngine.getInstance().render(htmlContent, outputStream);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,326 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.utj.asman.dto.FacilityDto;
+import org.utj.asman.dto.FacilityImportErrorDto;
+import org.utj.asman.dto.FacilityImportResultDto;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.model.ChangeJournalEntry;
+import org.utj.asman.model.County;
+import org.utj.asman.repository.CountyRepository;
+import org.utj.asman.repository.FacilityRepository;
+import org.utj.asman.util.CsvLineParser;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Streaming import of the national facility master list from CSV, upserting by MFL code.
+ *
+ * The upload is read line by line and processed in chunks of CHUNK_SIZE rows:
+ * - counties are resolved from an in-memory map (by code or name) loaded once per import
+ * - the existing facilities of a chunk are looked up with one IN query on their MFL codes
+ * - new facilities are written with one JDBC batch insert, changed ones with one batch update;
+ *   rows identical to the stored facility are counted as unchanged and not written
+ * Memory stays bounded by the chunk size plus the set of MFL codes already seen in the file.
+ *
+ * Supported columns (case-insensitive): mflCode, facilityName, countyCode or county (code or name).
+ * A row without a county keeps the county of an existing facility (and has none when inserted).
+ */
+@Service
+public class FacilityImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacilityImportService.class);
+
+    public static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO facilities (facility_name, mfl_code, county_id, created_at) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE facilities SET facility_name = ?, county_id = ? WHERE id = ?";
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CountyRepository countyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ChangeJournalService changeJournal;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Import facilities from a CSV stream. The first line must be a header row with at least mflCode and facilityName.
+     */
+    public FacilityImportResultDto importCsv(InputStream inputStream) throws IOException {
+        ImportContext ctx = newContext();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return ctx.result;
+        }
+        List<String> header = new ArrayList<String>();
+        for (String column : CsvLineParser.parse(headerLine)) {
+            header.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        if (!header.contains("mflcode") || !header.contains("facilityname")) {
+            throw new IllegalArgumentException("CSV header must contain mflCode and facilityName columns");
+        }
+
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = CsvLineParser.parse(line);
+            Map<String, String> fields = new HashMap<String, String>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            acceptRow(ctx, lineNumber, fields);
+        }
+
+        flushChunk(ctx);
+        return finish(ctx.result);
+    }
+
+    // --- Row handling ---
+
+    private ImportContext newContext() {
+        ImportContext ctx = new ImportContext();
+        for (County county : countyRepository.findAll()) {
+            if (county.getCountyCode() != null) {
+                ctx.countyIdsByKey.put(countyKey(county.getCountyCode()), county.getId());
+            }
+            if (county.getCountyName() != null) {
+                ctx.countyIdsByKey.putIfAbsent(countyKey(county.getCountyName()), county.getId());
+            }
+        }
+        return ctx;
+    }
+
+    private void acceptRow(ImportContext ctx, int lineNumber, Map<String, String> fields) {
+        FacilityImportResultDto result = ctx.result;
+        result.setTotalRows(result.getTotalRows() + 1);
+
+        FacilityDto dto = new FacilityDto();
+        dto.setMflCode(trimToNull(fields.get("mflcode")));
+        dto.setFacilityName(trimToNull(fields.get("facilityname")));
+        String mflCode = dto.getMflCode();
+
+        // Bean validation (required fields, lengths) using the same rules as the facility form
+        Set<ConstraintViolation<FacilityDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<FacilityDto> first = violations.iterator().next();
+            result.addError(lineNumber, mflCode, first.getPropertyPath() + ": " + first.getMessage());
+            return;
+        }
+
+        String county = trimToNull(fields.get("countycode"));
+        if (county == null) {
+            county = trimToNull(fields.get("county"));
+        }
+        Long countyId = null;
+        if (county != null) {
+            countyId = ctx.countyIdsByKey.get(countyKey(county));
+            if (countyId == null) {
+                result.addError(lineNumber, mflCode, "County not found: " + county);
+                return;
+            }
+        }
+
+        if (!ctx.seenMflCodes.add(mflCode)) {
+            result.addError(lineNumber, mflCode, "Duplicate MFL Code in upload: " + mflCode);
+            return;
+        }
+
+        ctx.chunk.add(new PendingRow(lineNumber, mflCode, dto.getFacilityName(), countyId, county != null));
+        if (ctx.chunk.size() >= CHUNK_SIZE) {
+            flushChunk(ctx);
+        }
+    }
+
+    /**
+     * Look up the chunk's existing facilities in one query, then batch insert the new ones and batch update the changed ones.
+     */
+    private void flushChunk(ImportContext ctx) {
+        if (ctx.chunk.isEmpty()) {
+            return;
+        }
+        List<PendingRow> chunk = new ArrayList<PendingRow>(ctx.chunk);
+        ctx.chunk.clear();
+
+        List<String> mflCodes = new ArrayList<String>(chunk.size());
+        for (PendingRow row : chunk) {
+            mflCodes.add(row.mflCode);
+        }
+        Map<String, Object[]> existing = new HashMap<String, Object[]>();
+        for (Object[] state : facilityRepository.findImportStateByMflCodeIn(mflCodes)) {
+            existing.put((String) state[1], state);
+        }
+
+        List<PendingRow> inserts = new ArrayList<PendingRow>();
+        List<PendingRow> updates = new ArrayList<PendingRow>();
+        for (PendingRow row : chunk) {
+            Object[] state = existing.get(row.mflCode);
+            if (state == null) {
+                inserts.add(row);
+                continue;
+            }
+            row.id = (Long) state[0];
+            if (!row.hasCounty) {
+                row.countyId = (Long) state[3];
+            }
+            if (row.facilityName.equals(state[2]) && Objects.equals(row.countyId, state[3])) {
+                ctx.result.setUnchanged(ctx.result.getUnchanged() + 1);
+            } else {
+                updates.add(row);
+            }
+        }
+
+        try {
+            writeRows(inserts, updates);
+            ctx.result.setInserted(ctx.result.getInserted() + inserts.size());
+            ctx.result.setUpdated(ctx.result.getUpdated() + updates.size());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer created one of the MFL codes between the lookup and the insert.
+            // Fall back to row-by-row writes so only the offending rows are rejected.
+            log.warn("Batch write of {} facilities failed, retrying row by row: {}", inserts.size() + updates.size(), e.getMessage());
+            for (PendingRow row : inserts) {
+                try {
+                    writeRows(Collections.singletonList(row), Collections.<PendingRow>emptyList());
+                    ctx.result.setInserted(ctx.result.getInserted() + 1);
+                } catch (DataIntegrityViolationException rowError) {
+                    ctx.result.addError(row.line, row.mflCode, "Duplicate MFL Code");
+                }
+            }
+            for (PendingRow row : updates) {
+                try {
+                    writeRows(Collections.<PendingRow>emptyList(), Collections.singletonList(row));
+                    ctx.result.setUpdated(ctx.result.getUpdated() + 1);
+                } catch (DataIntegrityViolationException rowError) {
+                    ctx.result.addError(row.line, row.mflCode, "Could not update facility: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeRows(final List<PendingRow> inserts, final List<PendingRow> updates) {
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        final List<Object[]> insertArgs = new ArrayList<Object[]>(inserts.size());
+        final List<String> insertedMflCodes = new ArrayList<String>(inserts.size());
+        for (PendingRow row : inserts) {
+            insertArgs.add(new Object[] { row.facilityName, row.mflCode, row.countyId, now });
+            insertedMflCodes.add(row.mflCode);
+        }
+        final List<Object[]> updateArgs = new ArrayList<Object[]>(updates.size());
+        final List<Long> changedIds = new ArrayList<Long>(inserts.size() + updates.size());
+        for (PendingRow row : updates) {
+            updateArgs.add(new Object[] { row.facilityName, row.countyId, row.id });
+            changedIds.add(row.id);
+        }
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            if (!insertArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, insertArgs);
+                // Read back the generated IDs (one query) for the journal and the listeners
+                changedIds.addAll(facilityRepository.findIdsByMflCodeIn(insertedMflCodes));
+            }
+            if (!updateArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updateArgs);
+            }
+            changeJournal.recordAll(ChangeJournalEntry.EntityType.FACILITY, changedIds, ChangeJournalEntry.Operation.UPSERT);
+            // One event per chunk: listeners that reload all facilities do so once, not once per row
+            eventPublisher.publishEvent(EntityChangedEvent.savedAll(EntityChangedEvent.EntityType.FACILITY, changedIds));
+            return null;
+        });
+    }
+
+    private FacilityImportResultDto finish(FacilityImportResultDto result) {
+        // Errors from the database writes are found per chunk - report them in file order
+        result.getErrors().sort(Comparator.comparingInt(FacilityImportErrorDto::getLine));
+        log.info("Facility import finished: {} rows, {} inserted, {} updated, {} unchanged, {} rejected",
+                result.getTotalRows(), result.getInserted(), result.getUpdated(), result.getUnchanged(), result.getRejected());
+        return result;
+    }
+
+    private static String countyKey(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // --- Internal state of a single import run ---
+
+    private static class ImportContext {
+        final FacilityImportResultDto result = new FacilityImportResultDto();
+        final Map<String, Long> countyIdsByKey = new HashMap<String, Long>();
+        final Set<String> seenMflCodes = new HashSet<String>();
+        final List<PendingRow> chunk = new ArrayList<PendingRow>(CHUNK_SIZE);
+    }
+
+    private static class PendingRow {
+        final int line;
+        final String mflCode;
+        final String facilityName;
+        final boolean hasCounty;
+        Long countyId;
+        Long id; // set when the MFL code already exists
+
+        PendingRow(int line, String mflCode, String facilityName, Long countyId, boolean hasCounty) {
+            this.line = line;
+            this.mflCode = mflCode;
+            this.facilityName = facilityName;
+            this.countyId = countyId;
+            this.hasCounty = hasCounty;
+        }
+    }
+}
@@ -1,24 +1,69 @@
 package org.utj.asman.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.DataTablePageDto;
 import org.utj.asman.dto.FacilityDto;
 import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.dto.FacilityRowDto;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.event.EntityChangedEvent.EntityType;
+import org.utj.asman.util.BoundedTtlCache;
+import org.utj.asman.util.DataTableRequest;
 import org.utj.asman.util.FacilityMapper;
+import org.utj.asman.model.ChangeJournalEntry;
 import org.utj.asman.model.Facility;
 import org.utj.asman.model.County;
 import org.utj.asman.repository.FacilityRepository;
 import org.utj.asman.repository.CountyRepository;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class FacilityService {
 
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    public static final int MAX_SEARCH_PAGE_SIZE = 200;
+
+    // Facility DTO cache: facilities change rarely but are looked up for every PDF and edit dialog
+    private static final int DTO_CACHE_MAX_ENTRIES = 5000;
+    private static final long DTO_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    // Sort keys accepted from clients, mapped to query properties (c = county alias)
+    private static final Map<String, String> SEARCH_SORTS = new HashMap<String, String>();
+
+    static {
+        SEARCH_SORTS.put("name", "facilityName");
+        SEARCH_SORTS.put("mflCode", "mflCode");
+        SEARCH_SORTS.put("county", "c.countyName");
+        SEARCH_SORTS.put("createdAt", "createdAt");
+    }
+
+    // Facility table columns that can be sorted, mapped to query properties
+    private static final Map<String, String> TABLE_SORTS = new HashMap<String, String>();
+
+    static {
+        TABLE_SORTS.put("id", "id");
+        TABLE_SORTS.put("facilityName", "facilityName");
+        TABLE_SORTS.put("mflCode", "mflCode");
+        TABLE_SORTS.put("countyName", "c.countyName");
+    }
+
     @Autowired
     private FacilityRepository facilityRepository;
 
@@ -28,12 +73,30 @@ public class FacilityService {
     @Autowired
     private FacilityMapper facilityMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeJournalService changeJournal;
+
+    private final BoundedTtlCache<Long, FacilityResponseDto> dtoById =
+            new BoundedTtlCache<Long, FacilityResponseDto>(DTO_CACHE_MAX_ENTRIES, DTO_CACHE_TTL_MILLIS);
+
+    private final BoundedTtlCache<String, FacilityResponseDto> dtoByMflCode =
+            new BoundedTtlCache<String, FacilityResponseDto>(DTO_CACHE_MAX_ENTRIES, DTO_CACHE_TTL_MILLIS);
+
+    // Bumped on every invalidation; a load that started before it must not be cached
+    private long cacheGeneration;
+
+    private final Object cacheLock = new Object();
+
     /**
      * Get all facilities as DTOs with null-safe handling
      * This method ensures all null values are handled before reaching the view
      */
+    @Transactional(readOnly = true)
     public List<FacilityResponseDto> getAllFacilitiesDto() {
-        List<Facility> facilities = facilityRepository.findAll();
+        List<FacilityRowDto> facilities = facilityRepository.findAllRows();
         return facilities.stream()
                 .map(facilityMapper::toResponseDto)
                 .collect(Collectors.toList());
@@ -47,9 +110,100 @@ public class FacilityService {
         if (id == null) {
             return Optional.empty();
         }
-        
-        return facilityRepository.findById(id)
+
+        FacilityResponseDto cached = dtoById.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+
+        long generation = currentCacheGeneration();
+        Optional<FacilityResponseDto> loaded = facilityRepository.findWithCountyById(id)
                 .map(facilityMapper::toResponseDto);
+        loaded.ifPresent(dto -> cacheIfCurrent(generation, dto));
+        return loaded.map(FacilityService::copy);
+    }
+
+    /**
+     * Get facility by MFL code as DTO, served from the same cache as getFacilityDtoById()
+     * Returns empty Optional if no facility has this MFL code
+     */
+    public Optional<FacilityResponseDto> getFacilityDtoByMflCode(String mflCode) {
+        if (mflCode == null || mflCode.trim().isEmpty()) {
+            return Optional.empty();
+        }
+
+        FacilityResponseDto cached = dtoByMflCode.get(mflCode);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+
+        long generation = currentCacheGeneration();
+        Optional<FacilityResponseDto> loaded = facilityRepository.findWithCountyByMflCode(mflCode)
+                .map(facilityMapper::toResponseDto);
+        loaded.ifPresent(dto -> cacheIfCurrent(generation, dto));
+        return loaded.map(FacilityService::copy);
+    }
+
+    /**
+     * Hit/miss counters and sizes of the facility DTO cache
+     */
+    public Map<String, Object> getDtoCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("byIdSize", dtoById.size());
+        stats.put("byMflCodeSize", dtoByMflCode.size());
+        stats.put("maxEntries", DTO_CACHE_MAX_ENTRIES);
+        stats.put("ttlSeconds", TimeUnit.MILLISECONDS.toSeconds(DTO_CACHE_TTL_MILLIS));
+        stats.put("hits", dtoById.getHits() + dtoByMflCode.getHits());
+        stats.put("misses", dtoById.getMisses() + dtoByMflCode.getMisses());
+        stats.put("evictions", dtoById.getEvictions() + dtoByMflCode.getEvictions());
+        return stats;
+    }
+
+    /**
+     * Drop cached DTOs after a committed facility or county change.
+     * A county change can rename the county of any number of facilities, so it clears everything;
+     * a facility change may also have changed its MFL code, so the MFL code index is cleared as well.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() != EntityType.FACILITY && event.getEntityType() != EntityType.COUNTY) {
+            return;
+        }
+        synchronized (cacheLock) {
+            cacheGeneration++;
+            if (event.getEntityType() == EntityType.FACILITY) {
+                for (Long id : event.getEntityIds()) {
+                    dtoById.remove(id);
+                }
+            } else {
+                dtoById.clear();
+            }
+            dtoByMflCode.clear();
+        }
+    }
+
+    private long currentCacheGeneration() {
+        synchronized (cacheLock) {
+            return cacheGeneration;
+        }
+    }
+
+    private void cacheIfCurrent(long generation, FacilityResponseDto dto) {
+        synchronized (cacheLock) {
+            if (generation != cacheGeneration) {
+                return;
+            }
+            dtoById.put(dto.getId(), dto);
+            if (!dto.getMflCode().isEmpty()) {
+                dtoByMflCode.put(dto.getMflCode(), dto);
+            }
+        }
+    }
+
+    // Cached DTOs are shared, callers get their own mutable copy
+    private static FacilityResponseDto copy(FacilityResponseDto dto) {
+        return new FacilityResponseDto(dto.getId(), dto.getFacilityName(), dto.getMflCode(), dto.getCountyId(),
+                dto.getCountyName(), dto.getCountyCode(), dto.getCreatedAt());
     }
 
     /**
@@ -90,6 +244,8 @@ public class FacilityService {
 
         // Save and convert to DTO
         Facility savedFacility = facilityRepository.save(facility);
+        changeJournal.record(ChangeJournalEntry.EntityType.FACILITY, savedFacility.getId(), ChangeJournalEntry.Operation.UPSERT);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(EntityType.FACILITY, savedFacility.getId()));
         return facilityMapper.toResponseDto(savedFacility);
     }
 
@@ -109,6 +265,8 @@ public class FacilityService {
         }
         
         facilityRepository.deleteById(id);
+        changeJournal.record(ChangeJournalEntry.EntityType.FACILITY, id, ChangeJournalEntry.Operation.DELETE);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(EntityType.FACILITY, id));
     }
 
     /**
@@ -143,12 +301,13 @@ public class FacilityService {
      * @param countyId The county ID
      * @return List of facilities in the county
      */
+    @Transactional(readOnly = true)
     public List<FacilityResponseDto> getFacilitiesByCountyId(Long countyId) {
         if (countyId == null) {
             return getAllFacilitiesDto();
         }
 
-        List<Facility> facilities = facilityRepository.findByCountyId(countyId);
+        List<FacilityRowDto> facilities = facilityRepository.findRowsByCountyId(countyId);
         return facilities.stream()
                 .map(facilityMapper::toResponseDto)
                 .collect(Collectors.toList());
@@ -165,16 +324,64 @@ public class FacilityService {
             return getAllFacilitiesDto();
         }
 
-        String normalizedSearch = searchTerm.trim().toLowerCase();
-        List<Facility> facilities = facilityRepository.findAll();
-        
-        return facilities.stream()
-                .filter(f -> 
-                    (f.getFacilityName() != null && f.getFacilityName().toLowerCase().contains(normalizedSearch)) ||
-                    (f.getMflCode() != null && f.getMflCode().toLowerCase().contains(normalizedSearch))
-                )
+        return facilityRepository.searchRows(toLikePattern(searchTerm), null, Pageable.unpaged())
+                .map(facilityMapper::toResponseDto)
+                .getContent();
+    }
+
+    /**
+     * Paginated search by name or MFL code, optionally within one county
+     * Runs in the database as a single projection query (plus a count), whatever the number of facilities
+     * 
+     * @param searchTerm Part of the name or MFL code (null or blank for all facilities)
+     * @param countyId County filter (null for all counties)
+     * @param page Zero-based page number
+     * @param size Page size (defaults to DEFAULT_SEARCH_PAGE_SIZE, capped at MAX_SEARCH_PAGE_SIZE)
+     * @param sort One of name, mflCode, county, createdAt (defaults to name)
+     * @param descending Sort direction
+     * @return One page of matching facilities as DTOs
+     */
+    public Page<FacilityResponseDto> searchFacilities(String searchTerm, Long countyId, Integer page, Integer size,
+                                                      String sort, boolean descending) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(size, MAX_SEARCH_PAGE_SIZE);
+        int pageNumber = (page == null || page < 0) ? 0 : page;
+
+        String property = SEARCH_SORTS.get(sort != null ? sort : "name");
+        if (property == null) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        // ID as tie-breaker keeps pages stable when names repeat
+        Sort order = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, property).and(Sort.by("id"));
+
+        Page<FacilityRowDto> rows = facilityRepository.searchRows(toLikePattern(searchTerm), countyId,
+                PageRequest.of(pageNumber, pageSize, order));
+        return rows.map(facilityMapper::toResponseDto);
+    }
+
+    /**
+     * One page of the admin facility table (DataTables server-side protocol)
+     * 
+     * @param request Paging, sort and search box parameters
+     * @param countyId County filter (null for all counties)
+     * @return The page, with totals before and after the search box is applied
+     */
+    @Transactional(readOnly = true)
+    public DataTablePageDto<FacilityResponseDto> getFacilityTable(DataTableRequest request, Long countyId) {
+        long total = countyId == null ? countFacilities() : countFacilitiesByCounty(countyId);
+
+        Page<FacilityRowDto> rows = facilityRepository.searchRows(request.getSearchPattern(), countyId,
+                request.toPageable(TABLE_SORTS, "facilityName", false));
+        List<FacilityResponseDto> data = rows.getContent().stream()
                 .map(facilityMapper::toResponseDto)
                 .collect(Collectors.toList());
+        return new DataTablePageDto<FacilityResponseDto>(request.getDraw(), total, rows.getTotalElements(), data);
+    }
+
+    private static String toLikePattern(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return null;
+        }
+        return "%" + searchTerm.trim().toLowerCase(Locale.ROOT) + "%";
     }
 
     /**
@@ -241,6 +448,9 @@ public class FacilityService {
             facility.setCounty(facilityDetails.getCounty());
         }
         
-        return facilityRepository.save(facility);
+        Facility saved = facilityRepository.save(facility);
+        changeJournal.record(ChangeJournalEntry.EntityType.FACILITY, saved.getId(), ChangeJournalEntry.Operation.UPSERT);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(EntityType.FACILITY, saved.getId()));
+        return saved;
     }
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -123,4 +125,42 @@ public class FileStorageService {
     public Path getStorageDirectory() {
         return storageDirectory;
     }
+
+    /**
+     * Returns (and creates if needed) a named directory for generated files such as caches.
+     * Work directories live next to the uploads directory, never inside it.
+     *
+     * @param name The directory name, e.g. "snapshots".
+     * @return The absolute path of the work directory.
+     * @throws IOException If the directory cannot be created.
+     */
+    public Path getWorkDirectory(String name) throws IOException {
+        Path workRoot = storageDirectory.resolveSibling("work");
+        Path directory = workRoot.resolve(name).normalize();
+
+        // Validate the directory name
+        if (!directory.getParent().equals(workRoot)) {
+            LOGGER.error("Invalid work directory name: {}", name);
+            throw new SecurityException("Invalid work directory name");
+        }
+
+        return Files.createDirectories(directory);
+    }
+
+    /**
+     * Same as getWorkDirectory(), but accessible only to the user running the application
+     * (where the file system supports POSIX permissions). For generated files holding staff names
+     * and serial numbers, such as rendered PDFs.
+     *
+     * @param name The directory name, e.g. "pdf-cache".
+     * @return The absolute path of the work directory.
+     * @throws IOException If the directory cannot be created or restricted.
+     */
+    public Path getPrivateWorkDirectory(String name) throws IOException {
+        Path directory = getWorkDirectory(name);
+        if (Files.getFileStore(directory).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        }
+        return directory;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.utj.asman.dto.AssetEntryDTO;
+import org.utj.asman.model.AssetRecord;
+import org.utj.asman.model.IdempotencyKey;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.IdempotencyKeyRepository;
+import org.utj.asman.util.BoundedTtlCache;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotent asset creation for clients that retry POST /api/v1/assets with an Idempotency-Key header.
+ *
+ * A key is stored in the idempotency_keys table in the same transaction as the asset it created,
+ * so a retry - even after a restart - replays the original asset instead of creating another one.
+ * Recent keys are also held in a bounded in-memory cache, so most replays cost no query at all.
+ * Concurrent requests with the same key wait for the first one and share its result.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int CACHE_MAX_ENTRIES = 10000;
+    private static final long CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    // Persisted keys are kept long enough to cover any realistic retry window of the mobile app
+    private static final long KEY_RETENTION_HOURS = 48;
+
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Writes properties and map entries in sorted order, so equal requests always serialize identically
+    private ObjectMapper canonicalMapper;
+
+    private final BoundedTtlCache<String, Replay> cache =
+            new BoundedTtlCache<String, Replay>(CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+
+    private final ConcurrentHashMap<String, CompletableFuture<Replay>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<Replay>>();
+
+    @PostConstruct
+    public void init() {
+        canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    /**
+     * Create an asset at most once per key.
+     *
+     * @param key The client's Idempotency-Key (at most MAX_KEY_LENGTH characters)
+     * @param request The asset to create
+     * @return The asset created by the first request with this key
+     * @throws IllegalArgumentException for invalid keys and for validation errors of the request itself
+     * @throws IllegalStateException when the key was already used for a different request
+     */
+    public AssetRecord createAsset(String key, AssetEntryDTO request) {
+        if (key == null || key.trim().isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = requestHash(request);
+
+        Replay cached = cache.get(key);
+        if (cached != null) {
+            return cached.replay(requestHash);
+        }
+
+        CompletableFuture<Replay> mine = new CompletableFuture<Replay>();
+        CompletableFuture<Replay> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Same key already being processed - wait for it instead of inserting twice
+            return await(running).replay(requestHash);
+        }
+
+        try {
+            Replay result = createOrReplay(key, request, requestHash);
+            mine.complete(result);
+            return result.replay(requestHash);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Remove persisted keys past their retention and expired cache entries.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 60 * 1000L)
+    public void purgeExpiredKeys() {
+        int deleted = keyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(KEY_RETENTION_HOURS));
+        int evicted = cache.purgeExpired();
+        if (deleted > 0 || evicted > 0) {
+            log.info("Purged {} idempotency keys and {} cache entries", deleted, evicted);
+        }
+    }
+
+    /**
+     * SHA-256 (hex) of the canonical JSON form of a request.
+     */
+    private String requestHash(AssetEntryDTO request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonicalMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize the request", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Replay createOrReplay(String key, AssetEntryDTO request, String requestHash) {
+        Optional<IdempotencyKey> stored = keyRepository.findById(key);
+        if (stored.isPresent()) {
+            return loadStored(stored.get());
+        }
+
+        try {
+            AssetRecord created = new TransactionTemplate(transactionManager).execute(status -> {
+                AssetRecord saved = assetService.saveAsset(request);
+                keyRepository.save(new IdempotencyKey(key, saved.getId(), requestHash, LocalDateTime.now()));
+                return saved;
+            });
+            Replay replay = new Replay(created, requestHash);
+            cache.put(key, replay);
+            return replay;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the same key first; its asset is the answer
+            Optional<IdempotencyKey> winner = keyRepository.findById(key);
+            if (winner.isPresent()) {
+                return loadStored(winner.get());
+            }
+            throw e;
+        }
+    }
+
+    private Replay loadStored(IdempotencyKey stored) {
+        AssetRecord record = assetRepository.findWithRelationsById(stored.getAssetId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "The asset created with this Idempotency-Key no longer exists"));
+        Replay replay = new Replay(record, stored.getRequestHash());
+        cache.put(stored.getKey(), replay);
+        return replay;
+    }
+
+    private static Replay await(CompletableFuture<Replay> running) {
+        try {
+            return running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request with the same Idempotency-Key");
+        }
+    }
+
+    /**
+     * The response of a completed request, plus the hash of the request that produced it.
+     */
+    private static final class Replay {
+        final AssetRecord record;
+        final String requestHash;
+
+        Replay(AssetRecord record, String requestHash) {
+            this.record = record;
+            this.requestHash = requestHash;
+        }
+
+        AssetRecord replay(String hash) {
+            if (!hash.equals(requestHash)) {
+                throw new IllegalStateException("Idempotency-Key was already used for a different request");
+            }
+            return record;
+        }
+    }
+}
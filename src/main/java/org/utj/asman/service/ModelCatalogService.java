@@ -0,0 +1,95 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.util.PrefixCatalog;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory catalog of Monitor and UPS model names for the mobile auto-complete.
+ *
+ * Seeded once at startup with a grouped count per model, then kept current from
+ * AssetChangedEvent, so suggestions never hit the database while the user is typing.
+ */
+@Service
+public class ModelCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelCatalogService.class);
+
+    public static final int DEFAULT_SUGGESTION_LIMIT = 10;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    private final PrefixCatalog monitorModels = new PrefixCatalog();
+    private final PrefixCatalog upsModels = new PrefixCatalog();
+
+    private volatile boolean warmed = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            for (Object[] row : assetRepository.countMonitorModels()) {
+                monitorModels.adjust((String) row[0], (Long) row[1]);
+            }
+            for (Object[] row : assetRepository.countUpsModels()) {
+                upsModels.adjust((String) row[0], (Long) row[1]);
+            }
+            warmed = true;
+            log.info("Model catalog warmed: {} monitor models, {} UPS models",
+                    monitorModels.size(), upsModels.size());
+        } catch (Exception e) {
+            log.error("Could not warm model catalog, falling back to database search", e);
+        }
+    }
+
+    /**
+     * Ranked model suggestions for a prefix.
+     *
+     * @param type "monitor" or "ups"
+     * @param prefix What the user has typed so far
+     * @param limit Maximum number of suggestions
+     */
+    public List<String> suggest(String type, String prefix, int limit) {
+        PrefixCatalog catalog = catalogFor(type);
+        if (catalog == null || prefix == null) {
+            return Collections.emptyList();
+        }
+        return catalog.suggest(prefix, limit);
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        AssetSummaryDto before = event.getBefore();
+        AssetSummaryDto after = event.getAfter();
+
+        if (before != null) {
+            monitorModels.adjust(before.getMonitorModel(), -1);
+            upsModels.adjust(before.getUpsModel(), -1);
+        }
+        if (after != null) {
+            monitorModels.adjust(after.getMonitorModel(), 1);
+            upsModels.adjust(after.getUpsModel(), 1);
+        }
+    }
+
+    private PrefixCatalog catalogFor(String type) {
+        if ("monitor".equalsIgnoreCase(type)) return monitorModels;
+        if ("ups".equalsIgnoreCase(type)) return upsModels;
+        return null;
+    }
+}
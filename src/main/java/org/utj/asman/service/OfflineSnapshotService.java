@@ -0,0 +1,290 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.model.County;
+import org.utj.asman.model.CpuSpecification;
+import org.utj.asman.model.Facility;
+import org.utj.asman.repository.CountyRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact, gzip-compressed binary snapshot of the reference data (counties, facilities,
+ * CPU specifications) for the mobile app's offline mode.
+ *
+ * The snapshot is rebuilt at most once per catalog version (bumped after every committed
+ * facility, county or CPU spec write), written to disk, and served with the SHA-256 of the
+ * file as its ETag, so clients can skip unchanged downloads. Identical data always produces
+ * identical bytes, so the hash also survives restarts.
+ *
+ * Format (version 1), all integers are unsigned LEB128 varints, inside one gzip stream:
+ * <pre>
+ *   "UTJS" magic, format version (1 byte)
+ *   strings:    count, then per string: UTF-8 length, UTF-8 bytes
+ *   counties:   count, then per county:   id, name, code
+ *   facilities: count, then per facility: id, name, mflCode, countyId + 1 (0 = none)
+ *   cpu specs:  count, then per spec:     id, manufacturer, model, processor, memory, hardDisk,
+ *                                         supplier, purchaseDate epoch day + 1 (0 = none)
+ * </pre>
+ * String fields are indexes into the string table plus one (0 = null), so repeated values
+ * such as county names and manufacturers are stored once.
+ */
+@Service
+public class OfflineSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineSnapshotService.class);
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = "UTJS".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String SNAPSHOT_DIRECTORY = "snapshots";
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CountyRepository countyRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot current;
+
+    /**
+     * The snapshot of the current catalog version, built on first use after a change.
+     */
+    @Transactional(readOnly = true)
+    public Snapshot getSnapshot() throws IOException {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version == version.get()) {
+            return snapshot;
+        }
+        return rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+            case COUNTY:
+            case CPU_SPEC:
+                version.incrementAndGet();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private synchronized Snapshot rebuild() throws IOException {
+        // Version is read before the queries, so a concurrent write can only make the snapshot newer than its label
+        long buildVersion = version.get();
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version == buildVersion) {
+            return snapshot;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Long, Long> facilityCounties = new HashMap<Long, Long>();
+        for (Object[] row : facilityRepository.findAllIdAndCountyId()) {
+            facilityCounties.put((Long) row[0], (Long) row[1]);
+        }
+        // Stable order, so identical data always hashes the same
+        Sort byId = Sort.by("id");
+        byte[] data = encode(countyRepository.findAll(byId), facilityRepository.findAll(byId), facilityCounties,
+                cpuSpecRepository.findAll(byId));
+        String hash = sha256(data);
+
+        // Content-addressed file name: an unchanged catalog reuses the file from a previous build or run
+        Path directory = fileStorageService.getWorkDirectory(SNAPSHOT_DIRECTORY);
+        Path file = directory.resolve("reference-v" + FORMAT_VERSION + "-" + hash + ".bin.gz");
+        if (!Files.exists(file)) {
+            Path temp = Files.createTempFile(directory, "reference-", ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        // The previous file is kept, since a download may still be streaming it
+        deleteOtherSnapshots(directory, file, snapshot != null ? snapshot.file : null);
+
+        snapshot = new Snapshot(buildVersion, hash, file, data.length);
+        current = snapshot;
+        log.info("Offline snapshot built in {} ms: {} bytes, hash {}", System.currentTimeMillis() - start, data.length, hash);
+        return snapshot;
+    }
+
+    // --- Encoding ---
+
+    static byte[] encode(List<County> counties, List<Facility> facilities, Map<Long, Long> facilityCounties,
+                         List<CpuSpecification> specs) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        writeVarint(body, counties.size());
+        for (County county : counties) {
+            writeVarint(body, county.getId());
+            writeVarint(body, strings.ref(county.getCountyName()));
+            writeVarint(body, strings.ref(county.getCountyCode()));
+        }
+
+        writeVarint(body, facilities.size());
+        for (Facility facility : facilities) {
+            Long countyId = facilityCounties.get(facility.getId());
+            writeVarint(body, facility.getId());
+            writeVarint(body, strings.ref(facility.getFacilityName()));
+            writeVarint(body, strings.ref(facility.getMflCode()));
+            writeVarint(body, countyId != null ? countyId + 1 : 0);
+        }
+
+        writeVarint(body, specs.size());
+        for (CpuSpecification spec : specs) {
+            LocalDate purchaseDate = spec.getPurchaseDate();
+            writeVarint(body, spec.getId());
+            writeVarint(body, strings.ref(spec.getManufacturer()));
+            writeVarint(body, strings.ref(spec.getModel()));
+            writeVarint(body, strings.ref(spec.getProcessor()));
+            writeVarint(body, strings.ref(spec.getMemory()));
+            writeVarint(body, strings.ref(spec.getHardDisk()));
+            writeVarint(body, strings.ref(spec.getSupplier()));
+            writeVarint(body, purchaseDate != null ? purchaseDate.toEpochDay() + 1 : 0);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+            strings.writeTo(out);
+            body.writeTo(out);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value in snapshot: " + value);
+        }
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteOtherSnapshots(Path directory, Path keep, Path previous) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "reference-*")) {
+            for (Path file : files) {
+                if (!file.equals(keep) && !file.equals(previous)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up old snapshots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Dictionary of distinct strings in first-seen order.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> index = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        // 0 = null, otherwise position in the table + 1
+        int ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer position = index.get(value);
+            if (position == null) {
+                position = values.size();
+                index.put(value, position);
+                values.add(value);
+            }
+            return position + 1;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            writeVarint(out, values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * A built snapshot file and its content hash.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final String hash;
+        private final Path file;
+        private final long size;
+
+        Snapshot(long version, String hash, Path file, long size) {
+            this.version = version;
+            this.hash = hash;
+            this.file = file;
+            this.size = size;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getETag() {
+            return "\"" + hash + "\"";
+        }
+    }
+}
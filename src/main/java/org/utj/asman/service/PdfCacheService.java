@@ -0,0 +1,473 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.util.PdfRenderingEngine;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache of rendered PDFs (receipts and assignment forms).
+ *
+ * Files are content-addressed: the key is a SHA-256 of everything that ends up in the document -
+ * the PDF DTO (facility and asset rows, settings), the template source and the logo file contents.
+ * A cached file therefore never goes stale; invalidation on asset, facility and setting changes only
+ * frees disk space early. The cache is capped in bytes and entries, least recently used files go first.
+ * Files live in a work directory only the application's user can read, since they hold staff names and serials.
+ *
+ * Documents are handed out as channels opened under the cache's monitor, so a reader keeps its
+ * document even when invalidation or eviction deletes the file while it is being served.
+ */
+@Service
+public class PdfCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfCacheService.class);
+
+    private static final long MAX_BYTES = 256L * 1024 * 1024;
+    private static final int MAX_ENTRIES = 10000;
+
+    // Bump when rendering changes in a way the key inputs don't capture (e.g. a Flying Saucer upgrade)
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String CACHE_DIRECTORY = "pdf-cache";
+
+    private static final String FILE_SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static class Entry {
+        final Path file;
+        final long size;
+        final Set<String> tags;
+
+        Entry(Path file, long size, Set<String> tags) {
+            this.file = file;
+            this.size = size;
+            this.tags = tags;
+        }
+    }
+
+    private static class FileHash {
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        FileHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private Path directory;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by "this".
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<String, Set<String>>();
+    private long totalBytes;
+
+    // One render per key at a time; concurrent requests for the same document wait for it
+    private final ConcurrentHashMap<String, Object> renderLocks = new ConcurrentHashMap<String, Object>();
+
+    private final ConcurrentHashMap<String, String> templateHashes = new ConcurrentHashMap<String, String>();
+    private final ConcurrentHashMap<Path, FileHash> fileHashes = new ConcurrentHashMap<Path, FileHash>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        try {
+            this.directory = fileStorageService.getPrivateWorkDirectory(CACHE_DIRECTORY);
+            adoptExistingFiles();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not initialize PDF cache directory: " + CACHE_DIRECTORY, e);
+        }
+    }
+
+    // --- Keys and Tags ---
+
+    /**
+     * Content key of a document.
+     *
+     * @param template Thymeleaf template name (its source is part of the key)
+     * @param model The DTO the template is rendered from
+     * @param resourceUris file: URIs the document embeds (logos); their contents are part of the key
+     * @param ignoredProperties DTO properties that are not rendered (e.g. timestamps)
+     */
+    public String keyFor(String template, Object model, Collection<String> resourceUris, String... ignoredProperties) {
+        try {
+            ObjectNode json = objectMapper.valueToTree(model);
+            for (String property : ignoredProperties) {
+                json.remove(property);
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, FORMAT_VERSION);
+            update(digest, template);
+            update(digest, templateHash(template));
+            update(digest, objectMapper.writeValueAsString(json));
+            for (String uri : resourceUris) {
+                update(digest, uri != null ? resourceHash(uri) : "-");
+            }
+            return toHex(digest.digest());
+        } catch (Exception e) {
+            throw new RuntimeException("Could not compute PDF cache key for " + template, e);
+        }
+    }
+
+    public static String facilityTag(Long facilityId) {
+        return "facility:" + facilityId;
+    }
+
+    public static String assetTag(Long assetId) {
+        return "asset:" + assetId;
+    }
+
+    // --- Lookup ---
+
+    /**
+     * Opens the cached document for a key, rendering and storing it first when missing.
+     * The caller owns the returned channel and must close it.
+     *
+     * @param key Content key from keyFor()
+     * @param tags Facilities and assets shown in the document (see facilityTag(), assetTag())
+     * @param writer Renders the document when it is not cached
+     */
+    public FileChannel getOrRender(String key, Collection<String> tags, PdfRenderingEngine.PdfWriter writer) {
+        FileChannel cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        Object lock = renderLocks.computeIfAbsent(key, k -> new Object());
+        synchronized (lock) {
+            try {
+                cached = lookup(key);
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    return cached;
+                }
+                misses.incrementAndGet();
+                return render(key, tags, writer);
+            } finally {
+                renderLocks.remove(key, lock);
+            }
+        }
+    }
+
+    private synchronized FileChannel lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(entry.file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            remove(key);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open cached PDF " + entry.file, e);
+        }
+    }
+
+    private FileChannel render(String key, Collection<String> tags, PdfRenderingEngine.PdfWriter writer) {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        Path temp = directory.resolve(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+
+            synchronized (this) {
+                // Opened before trim() and any later invalidation can delete the file
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                if (entries.containsKey(key)) {
+                    // Same content, already indexed
+                    return channel;
+                }
+                Entry entry = new Entry(file, size, new HashSet<String>(tags));
+                entries.put(key, entry);
+                totalBytes += size;
+                for (String tag : entry.tags) {
+                    keysByTag.computeIfAbsent(tag, t -> new HashSet<String>()).add(key);
+                }
+                trim();
+                return channel;
+            }
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        } catch (Exception e) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to render PDF", e);
+        }
+    }
+
+    // --- Invalidation ---
+
+    /**
+     * Deletes every cached document carrying the tag.
+     */
+    public synchronized void invalidate(String tag) {
+        Set<String> keys = keysByTag.remove(tag);
+        if (keys != null) {
+            for (String key : new ArrayList<String>(keys)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Deletes every cached document.
+     */
+    public synchronized void clear() {
+        for (String key : new ArrayList<String>(entries.keySet())) {
+            remove(key);
+        }
+        keysByTag.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        invalidate(assetTag(event.getAssetId()));
+        invalidateFacilityOf(event.getBefore());
+        invalidateFacilityOf(event.getAfter());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+                for (Long id : event.getEntityIds()) {
+                    invalidate(facilityTag(id));
+                }
+                break;
+            case COUNTY:
+            case CPU_SPEC:
+            case SETTING:
+                // Shown on many documents and rarely changed
+                clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void invalidateFacilityOf(AssetSummaryDto snapshot) {
+        if (snapshot != null && snapshot.getFacilityId() != null) {
+            invalidate(facilityTag(snapshot.getFacilityId()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", MAX_BYTES);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("directory", directory.toString());
+        return stats;
+    }
+
+    // --- Internals ---
+
+    // Must hold the monitor
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        totalBytes -= entry.size;
+        for (String tag : entry.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+        deleteQuietly(entry.file);
+    }
+
+    // Must hold the monitor
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        List<String> victims = new ArrayList<String>();
+        long bytes = totalBytes;
+        int count = entries.size();
+        // The most recent entry always stays in the index, even if it alone exceeds the cap
+        while ((bytes > MAX_BYTES || count > MAX_ENTRIES) && count > 1 && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            victims.add(eldest.getKey());
+            bytes -= eldest.getValue().size;
+            count--;
+        }
+        for (String key : victims) {
+            remove(key);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Picks up files rendered before a restart (oldest first, so they are evicted first).
+     * Their tags are unknown, so they only leave the cache through LRU eviction.
+     */
+    private void adoptExistingFiles() throws IOException {
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                } else if (name.endsWith(FILE_SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+        Map<Path, BasicFileAttributes> attributes = new HashMap<Path, BasicFileAttributes>();
+        for (Path file : files) {
+            attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        files.sort((a, b) -> attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime()));
+
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String key = name.substring(0, name.length() - FILE_SUFFIX.length());
+                long size = attributes.get(file).size();
+                entries.put(key, new Entry(file, size, Collections.<String>emptySet()));
+                totalBytes += size;
+            }
+            trim();
+        }
+        if (!files.isEmpty()) {
+            log.info("PDF cache: adopted {} files ({} bytes) from {}", entries.size(), totalBytes, directory);
+        }
+    }
+
+    private String templateHash(String template) {
+        return templateHashes.computeIfAbsent(template, t -> {
+            try (InputStream in = new ClassPathResource("templates/" + t + ".html").getInputStream()) {
+                return hash(in);
+            } catch (IOException e) {
+                log.warn("Could not read template {} for the PDF cache key", t, e);
+                return "?";
+            }
+        });
+    }
+
+    // Hashes are cached per file and recomputed only when its size or modification time changes
+    private String resourceHash(String uri) throws IOException {
+        Path file;
+        try {
+            file = Paths.get(URI.create(uri));
+        } catch (Exception e) {
+            return uri;
+        }
+        if (!Files.exists(file)) {
+            return uri + ":missing";
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        FileHash known = fileHashes.get(file);
+        if (known != null && known.size == attrs.size() && known.lastModified == lastModified) {
+            return known.hash;
+        }
+        String hash;
+        try (InputStream in = Files.newInputStream(file)) {
+            hash = hash(in);
+        }
+        fileHashes.put(file, new FileHash(attrs.size(), lastModified, hash));
+        return hash;
+    }
+
+    private static String hash(InputStream in) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separator, so ("ab", "c") and ("a", "bc") hash differently
+        digest.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // e.g. still being served on Windows; the file is orphaned and overwritten or adopted on the next start
+            log.debug("Could not delete cached PDF {}", file, e);
+        }
+    }
+}
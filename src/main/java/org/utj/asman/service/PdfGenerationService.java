@@ -4,9 +4,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
-import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.utj.asman.util.PdfRenderingEngine;
 
-import java.io.ByteArrayOutputStream;
 import java.util.Map;
 
 @Service
@@ -25,12 +24,8 @@ public class PdfGenerationService {
         context.setVariables(data);
         String html = templateEngine.process(templateName, context);
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            ITextRenderer renderer = new ITextRenderer();
-            renderer.setDocumentFromString(html);
-            renderer.layout();
-            renderer.createPDF(outputStream);
-            return outputStream.toByteArray();
+        try {
+            return PdfRenderingEngine.getInstance().render(html);
         } catch (Exception e) {
             throw new RuntimeException("Error generating PDF", e);
         }
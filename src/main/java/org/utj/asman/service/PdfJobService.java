@@ -0,0 +1,313 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.dto.PdfJobDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.model.AssetRecord;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.util.PdfRenderingEngine;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders large PDFs (bulk assignment forms) in the background.
+ *
+ * Jobs run on a small bounded pool and write their result to a file; the UI polls the job's status
+ * and downloads the file when it is done. Submitting a document that is already queued or rendering
+ * returns the existing job instead of starting a second one. Finished jobs and their files are
+ * removed after RESULT_TTL_MINUTES. Files are kept in a work directory only the application's user can read.
+ */
+@Service
+public class PdfJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfJobService.class);
+
+    // Rendering is CPU and memory heavy; keep it well away from the Tomcat worker count
+    private static final int WORKERS = 2;
+    private static final int QUEUE_CAPACITY = 20;
+
+    private static final long RESULT_TTL_MINUTES = 30;
+
+    private static final String JOB_DIRECTORY = "pdf-jobs";
+
+    private static final String FILE_SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private static class Job {
+        final String id = UUID.randomUUID().toString();
+        final Long facilityId;
+        final String documentKey;
+        final String fileName;
+        final LocalDateTime createdAt = LocalDateTime.now();
+
+        volatile Status status = Status.QUEUED;
+        volatile int pagesDone;
+        volatile int pageCount;
+        volatile String error;
+        volatile Path file;
+        volatile LocalDateTime finishedAt;
+
+        Job(Long facilityId, String documentKey, String fileName) {
+            this.facilityId = facilityId;
+            this.documentKey = documentKey;
+            this.fileName = fileName;
+        }
+
+        PdfJobDto toDto() {
+            int percent;
+            if (status == Status.DONE) {
+                percent = 100;
+            } else if (pageCount > 0) {
+                percent = pagesDone * 100 / pageCount;
+            } else {
+                percent = 0;
+            }
+            return new PdfJobDto(id, facilityId, status.name(), pagesDone, pageCount, percent,
+                    fileName, error, createdAt, finishedAt);
+        }
+    }
+
+    @Autowired
+    private EnhancedPdfService pdfService;
+
+    @Autowired
+    private FacilityService facilityService;
+
+    @Autowired
+    private AssetRecordRepository assetRecordRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private Path directory;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+
+    // Queued or running job per document, used to deduplicate submits
+    private final Map<String, Job> inFlight = new ConcurrentHashMap<String, Job>();
+
+    private final ThreadPoolExecutor executor;
+
+    public PdfJobService() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            this.directory = fileStorageService.getPrivateWorkDirectory(JOB_DIRECTORY);
+            deleteLeftoverFiles();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not initialize PDF job directory: " + JOB_DIRECTORY, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue the bulk assignment forms of a facility, or return the job already rendering them.
+     *
+     * @return The job, or empty when the facility does not exist
+     * @throws IllegalStateException when the queue is full
+     */
+    public Optional<PdfJobDto> submitBulkAssignmentForms(Long facilityId) {
+        Optional<FacilityResponseDto> found = facilityService.getFacilityDtoById(facilityId);
+        if (!found.isPresent()) {
+            return Optional.empty();
+        }
+        FacilityResponseDto facility = found.get();
+
+        Job candidate = new Job(facilityId, bulkFormsKey(facilityId),
+                "assignment_forms_" + facility.getMflCode() + FILE_SUFFIX);
+        Job job = inFlight.putIfAbsent(candidate.documentKey, candidate);
+        if (job != null) {
+            log.debug("Reusing in-flight PDF job {} for {}", job.id, job.documentKey);
+            return Optional.of(job.toDto());
+        }
+
+        jobs.put(candidate.id, candidate);
+        try {
+            executor.execute(() -> run(candidate));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(candidate.id);
+            inFlight.remove(candidate.documentKey, candidate);
+            throw new IllegalStateException("Too many PDF jobs are queued, please try again shortly");
+        }
+        log.info("Queued PDF job {} for {}", candidate.id, candidate.documentKey);
+        return Optional.of(candidate.toDto());
+    }
+
+    public Optional<PdfJobDto> getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.toDto());
+    }
+
+    /**
+     * The rendered file of a finished job.
+     *
+     * @throws IllegalStateException when the job is unknown, expired or not finished
+     */
+    public Path getResultFile(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.status != Status.DONE || job.file == null || !Files.exists(job.file)) {
+            throw new IllegalStateException("PDF job result is not available: " + jobId);
+        }
+        return job.file;
+    }
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        long start = System.currentTimeMillis();
+        Path temp = null;
+        try {
+            List<AssetRecord> assets = assetRecordRepository.findWithRelationsByFacilityId(job.facilityId);
+            if (assets.isEmpty()) {
+                throw new IllegalArgumentException("No assets found for this facility");
+            }
+
+            PdfRenderingEngine.PdfWriter pdf = pdfService.prepareBulkAssignmentForms(assets, (pagesDone, pageCount) -> {
+                job.pageCount = pageCount;
+                job.pagesDone = pagesDone;
+            });
+
+            temp = Files.createTempFile(directory, job.id, TEMP_SUFFIX);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                pdf.write(out);
+            }
+            Path file = directory.resolve(job.id + FILE_SUFFIX);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            job.file = file;
+            job.status = Status.DONE;
+            log.info("PDF job {} finished: {} pages in {} ms", job.id, job.pageCount, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("PDF job {} failed for {}", job.id, job.documentKey, e);
+            job.error = e.getMessage();
+            job.status = Status.FAILED;
+            deleteQuietly(temp);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            inFlight.remove(job.documentKey, job);
+        }
+    }
+
+    /**
+     * Remove finished jobs past their retention, together with their files.
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000L, initialDelay = 5 * 60 * 1000L)
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(RESULT_TTL_MINUTES);
+        int purged = 0;
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext();) {
+            Job job = it.next();
+            if (job.finishedAt != null && job.finishedAt.isBefore(cutoff)) {
+                it.remove();
+                deleteQuietly(job.file);
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired PDF jobs", purged);
+        }
+    }
+
+    // --- Deduplication only covers jobs started after the last change to their data ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        forgetFacilityOf(event.getBefore());
+        forgetFacilityOf(event.getAfter());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+                for (Long id : event.getEntityIds()) {
+                    forgetFacility(id);
+                }
+                break;
+            case COUNTY:
+            case CPU_SPEC:
+            case SETTING:
+                inFlight.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void forgetFacilityOf(AssetSummaryDto snapshot) {
+        if (snapshot != null && snapshot.getFacilityId() != null) {
+            forgetFacility(snapshot.getFacilityId());
+        }
+    }
+
+    // The running job still completes; a new submit just starts a fresh one
+    private void forgetFacility(Long facilityId) {
+        inFlight.remove(bulkFormsKey(facilityId));
+    }
+
+    private static String bulkFormsKey(Long facilityId) {
+        return "assignment-forms:" + facilityId;
+    }
+
+    private void deleteLeftoverFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete PDF job file {}", file, e);
+        }
+    }
+}
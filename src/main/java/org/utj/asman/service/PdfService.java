@@ -1,16 +1,13 @@
 package org.utj.asman.service;
 
-import com.lowagie.text.DocumentException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.utj.asman.model.AssetRecord;
 import org.utj.asman.model.Facility;
-import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.utj.asman.util.PdfRenderingEngine;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,7 +18,10 @@ public class PdfService {
     @Autowired
     private SpringTemplateEngine templateEngine;
 
-    public ByteArrayOutputStream generateAssignmentFormsPdf(Facility facility, List<AssetRecord> assets) throws DocumentException, IOException {
+    /**
+     * Builds the assignment form HTML now and returns a writer that renders the PDF into the caller's stream.
+     */
+    public PdfRenderingEngine.PdfWriter prepareAssignmentFormsPdf(Facility facility, List<AssetRecord> assets) {
         Context context = new Context();
 
         // Using Java 8 compatible HashMap
@@ -32,12 +32,6 @@ public class PdfService {
 
         String htmlContent = templateEngine.process("pdf/assignment_form", context);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ITextRenderer renderer = new ITextRenderer();
-        renderer.setDocumentFromString(htmlContent);
-        renderer.layout();
-        renderer.createPDF(outputStream);
-
-        return outputStream;
+        return out -> PdfRenderingEngine.getInstance().render(htmlContent, out);
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versioned cache of the serialized reference-data payloads served to the mobile app
+ * (/api/v1/facilities and /api/v1/cpu-specs).
+ *
+ * Each catalog has a version counter that is bumped after every committed facility or
+ * CPU spec write. The strong ETag is derived from the counter and the startup time, so
+ * a conditional request can be answered with 304 without touching the database or Jackson,
+ * and a restart never reuses an ETag from a previous run.
+ */
+@Service
+public class ReferenceDataService {
+
+    public enum Catalog { FACILITIES, CPU_SPECS }
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final Map<Catalog, AtomicLong> versions = new EnumMap<Catalog, AtomicLong>(Catalog.class);
+    private final Map<Catalog, AtomicReference<Snapshot>> snapshots =
+            new EnumMap<Catalog, AtomicReference<Snapshot>>(Catalog.class);
+
+    public ReferenceDataService() {
+        for (Catalog catalog : Catalog.values()) {
+            versions.put(catalog, new AtomicLong());
+            snapshots.put(catalog, new AtomicReference<Snapshot>());
+        }
+    }
+
+    /**
+     * Current strong ETag of a catalog (quoted, ready for the ETag header).
+     */
+    public String currentETag(Catalog catalog) {
+        return etag(catalog, versions.get(catalog).get());
+    }
+
+    /**
+     * True when the If-None-Match header names the current version of the catalog.
+     */
+    public boolean isNotModified(Catalog catalog, String ifNoneMatch) {
+        return matchesIfNoneMatch(ifNoneMatch, currentETag(catalog));
+    }
+
+    /**
+     * True when an If-None-Match header (a list of ETags, or "*") matches the given ETag.
+     * Uses the weak comparison If-None-Match calls for, so a W/ prefix is ignored.
+     */
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String current = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * The serialized JSON payload of a catalog, rebuilt only when its version has changed.
+     */
+    public Snapshot getSnapshot(Catalog catalog) {
+        long version = versions.get(catalog).get();
+        Snapshot cached = snapshots.get(catalog).get();
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+
+        // Version is read before the query: if a write lands in between, the snapshot may be
+        // newer than its label, and the pending bump forces another rebuild - never older.
+        // Facilities are projected straight into DTOs; nothing here needs managed entities
+        Object data = catalog == Catalog.FACILITIES ? facilityRepository.findAllOptions() : cpuSpecRepository.findAll();
+        try {
+            Snapshot fresh = new Snapshot(version, etag(catalog, version), objectMapper.writeValueAsBytes(data));
+            snapshots.get(catalog).set(fresh);
+            return fresh;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + catalog + " reference data", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case FACILITY:
+                versions.get(Catalog.FACILITIES).incrementAndGet();
+                break;
+            case CPU_SPEC:
+                versions.get(Catalog.CPU_SPECS).incrementAndGet();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private String etag(Catalog catalog, long version) {
+        return "\"" + catalog.name().toLowerCase() + "-" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Immutable serialized payload of one catalog version.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] body;
+
+        Snapshot(long version, String etag, byte[] body) {
+            this.version = version;
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.dto.SerialLookupResultDto;
+import org.utj.asman.dto.SerialMatchDto;
+import org.utj.asman.event.AssetChangedEvent;
+import org.utj.asman.repository.AssetRecordRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of CPU, Monitor and UPS serial numbers and the assets that carry each one.
+ *
+ * Warmed from the database at startup and kept in sync through AssetChangedEvent after every commit.
+ * Answers duplicate checks without a query in the common case ("serial is free").
+ * Serials are keyed case-insensitively, as the MySQL collation compares them. The collation
+ * (PAD SPACE) ignores only trailing spaces, so the application trims serials itself before keying
+ * and querying them; a case or whitespace variant of a stored serial is never answered "free".
+ * Every asset carrying a serial is tracked, since Monitor/UPS serials are not unique in the schema;
+ * removing one asset leaves the serial registered for the others.
+ * The database is consulted only when the answer is uncertain:
+ * - before warm-up has finished
+ * - when the registry says the serial is taken (it may lag a rolled-back or concurrent write)
+ *
+ * This assumes a single application instance writes to the database; the unique
+ * constraint on cpu_serial remains the final guard for CPU serials.
+ */
+@Service
+public class SerialRegistryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialRegistryService.class);
+
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    public static final int MAX_LOOKUP_SERIALS = 5000;
+
+    // Serials per IN-list in batch lookups
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    public enum SerialType { CPU, MONITOR, UPS }
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    // Normalized serial -> IDs of the assets carrying it. The sets are immutable and replaced on change.
+    private final Map<SerialType, ConcurrentHashMap<String, Set<Long>>> owners =
+            new EnumMap<SerialType, ConcurrentHashMap<String, Set<Long>>>(SerialType.class);
+
+    private volatile boolean warmed = false;
+
+    public SerialRegistryService() {
+        for (SerialType type : SerialType.values()) {
+            owners.put(type, new ConcurrentHashMap<String, Set<Long>>());
+        }
+    }
+
+    /**
+     * Load every serial number from the database in keyset-paginated batches.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        long after = 0L;
+        int count = 0;
+        try {
+            List<SerialMatchDto> batch;
+            do {
+                batch = assetRepository.findSerialsAfter(after, PageRequest.of(0, WARM_UP_BATCH_SIZE));
+                for (SerialMatchDto row : batch) {
+                    register(SerialType.CPU, row.getCpuSerial(), row.getAssetId());
+                    register(SerialType.MONITOR, row.getMonitorSerial(), row.getAssetId());
+                    register(SerialType.UPS, row.getUpsSerial(), row.getAssetId());
+                    after = row.getAssetId();
+                }
+                count += batch.size();
+            } while (batch.size() == WARM_UP_BATCH_SIZE);
+
+            warmed = true;
+            log.info("Serial registry warmed with {} assets in {} ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Registry stays cold - every check falls back to the database
+            log.error("Could not warm serial registry, falling back to database checks", e);
+        }
+    }
+
+    /**
+     * Check whether a serial is already used by an asset other than excludeAssetId.
+     *
+     * @param type Which serial column to check
+     * @param serial The serial number (blank serials are never taken)
+     * @param excludeAssetId The asset being updated, or null when creating
+     * @return true if another asset owns the serial
+     */
+    public boolean isTaken(SerialType type, String serial, Long excludeAssetId) {
+        if (isBlank(serial)) {
+            return false;
+        }
+        String trimmed = serial.trim();
+        if (!warmed) {
+            return existsInDatabase(type, trimmed, excludeAssetId);
+        }
+
+        String key = normalize(serial);
+        Set<Long> ids = owners.get(type).get(key);
+        if (ids == null || !hasOtherOwner(ids, excludeAssetId)) {
+            return false;
+        }
+
+        // Registry says taken - confirm, and drop the other owners if they were stale
+        boolean taken = existsInDatabase(type, trimmed, excludeAssetId);
+        if (!taken) {
+            for (Long id : ids) {
+                if (!id.equals(excludeAssetId)) {
+                    unregister(type, key, id);
+                }
+            }
+        }
+        return taken;
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    /**
+     * Resolve a batch of scanned serials against CPU, Monitor and UPS serials.
+     *
+     * Once warmed, serials the registry does not know are answered as free without a query;
+     * the rest are resolved with one set-based query per LOOKUP_CHUNK_SIZE serials.
+     * When a serial matches several components or assets, the CPU match wins, then the lowest asset ID.
+     * Serials are compared trimmed and case-insensitively, like the database does.
+     *
+     * @param serials Scanned serials, at most MAX_LOOKUP_SERIALS (blank entries and duplicates are dropped, order is kept)
+     * @return One result per distinct serial
+     */
+    public List<SerialLookupResultDto> lookup(List<String> serials) {
+        if (serials.size() > MAX_LOOKUP_SERIALS) {
+            throw new IllegalArgumentException("At most " + MAX_LOOKUP_SERIALS + " serials can be looked up at once");
+        }
+        // Keyed by normalized serial; the result keeps the serial as first scanned (trimmed)
+        Map<String, SerialLookupResultDto> results = new LinkedHashMap<String, SerialLookupResultDto>();
+        for (String raw : serials) {
+            if (!isBlank(raw)) {
+                results.putIfAbsent(normalize(raw), SerialLookupResultDto.notFound(raw.trim()));
+            }
+        }
+        List<String> toQuery = new ArrayList<String>();
+        for (Map.Entry<String, SerialLookupResultDto> entry : results.entrySet()) {
+            if (!warmed || mayBeTaken(entry.getKey())) {
+                toQuery.add(entry.getValue().getSerial());
+            }
+        }
+
+        for (int i = 0; i < toQuery.size(); i += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = toQuery.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, toQuery.size()));
+            for (AssetSummaryDto asset : assetRepository.findSummariesBySerialIn(chunk)) {
+                match(results, asset, asset.getCpuSerial(), SerialType.CPU);
+                match(results, asset, asset.getMonitorSerial(), SerialType.MONITOR);
+                match(results, asset, asset.getUpsSerial(), SerialType.UPS);
+            }
+        }
+        return new ArrayList<SerialLookupResultDto>(results.values());
+    }
+
+    private boolean mayBeTaken(String key) {
+        for (SerialType type : SerialType.values()) {
+            if (owners.get(type).containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void match(Map<String, SerialLookupResultDto> results, AssetSummaryDto asset,
+                              String assetSerial, SerialType type) {
+        if (isBlank(assetSerial)) {
+            return;
+        }
+        SerialLookupResultDto result = results.get(normalize(assetSerial));
+        if (result == null || !isBetterMatch(result, asset, type)) {
+            return;
+        }
+        result.setFound(true);
+        result.setComponent(type.name());
+        result.setAssetId(asset.getId());
+        result.setFacilityId(asset.getFacilityId());
+        result.setFacilityName(asset.getFacilityName());
+        result.setMflCode(asset.getMflCode());
+    }
+
+    private static boolean isBetterMatch(SerialLookupResultDto current, AssetSummaryDto asset, SerialType type) {
+        if (!current.isFound()) {
+            return true;
+        }
+        int rank = SerialType.valueOf(current.getComponent()).ordinal();
+        if (type.ordinal() != rank) {
+            return type.ordinal() < rank;
+        }
+        return asset.getId() < current.getAssetId();
+    }
+
+    // --- Sync ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetChanged(AssetChangedEvent event) {
+        AssetSummaryDto before = event.getBefore();
+        AssetSummaryDto after = event.getAfter();
+
+        if (before != null) {
+            unregister(SerialType.CPU, before.getCpuSerial(), before.getId());
+            unregister(SerialType.MONITOR, before.getMonitorSerial(), before.getId());
+            unregister(SerialType.UPS, before.getUpsSerial(), before.getId());
+        }
+        if (after != null) {
+            register(SerialType.CPU, after.getCpuSerial(), after.getId());
+            register(SerialType.MONITOR, after.getMonitorSerial(), after.getId());
+            register(SerialType.UPS, after.getUpsSerial(), after.getId());
+        }
+    }
+
+    private void register(SerialType type, String serial, Long assetId) {
+        if (isBlank(serial)) {
+            return;
+        }
+        owners.get(type).compute(normalize(serial), (key, ids) -> {
+            if (ids != null && ids.contains(assetId)) {
+                return ids;
+            }
+            Set<Long> updated = ids == null ? new HashSet<Long>() : new HashSet<Long>(ids);
+            updated.add(assetId);
+            return Collections.unmodifiableSet(updated);
+        });
+    }
+
+    private void unregister(SerialType type, String serial, Long assetId) {
+        if (isBlank(serial)) {
+            return;
+        }
+        owners.get(type).computeIfPresent(normalize(serial), (key, ids) -> {
+            if (!ids.contains(assetId)) {
+                return ids;
+            }
+            Set<Long> updated = new HashSet<Long>(ids);
+            updated.remove(assetId);
+            return updated.isEmpty() ? null : Collections.unmodifiableSet(updated);
+        });
+    }
+
+    private static boolean hasOtherOwner(Set<Long> ids, Long excludeAssetId) {
+        for (Long id : ids) {
+            if (!id.equals(excludeAssetId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comparison key of a serial: trimmed and case-folded. The database compares serials case-insensitively
+     * and the application trims them before comparing, so two serials with the same key are the same serial.
+     */
+    public static String normalize(String serial) {
+        return serial.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private boolean existsInDatabase(SerialType type, String serial, Long excludeAssetId) {
+        switch (type) {
+            case CPU:
+                return excludeAssetId != null
+                        ? assetRepository.existsByCpuSerialAndIdNot(serial, excludeAssetId)
+                        : assetRepository.existsByCpuSerial(serial);
+            case MONITOR:
+                return excludeAssetId != null
+                        ? assetRepository.existsByMonitorSerialAndIdNot(serial, excludeAssetId)
+                        : assetRepository.existsByMonitorSerial(serial);
+            case UPS:
+                return excludeAssetId != null
+                        ? assetRepository.existsByUpsSerialAndIdNot(serial, excludeAssetId)
+                        : assetRepository.existsByUpsSerial(serial);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -3,9 +3,12 @@ package org.utj.asman.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.event.EntityChangedEvent.EntityType;
 import org.utj.asman.model.Setting;
 import org.utj.asman.repository.SettingRepository;
 
@@ -28,6 +31,9 @@ public class SettingService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Initialize default settings on application startup
      */
@@ -106,7 +112,8 @@ public class SettingService {
             setting.setLabel(label != null ? label : key);
             setting.setType(type != null ? type : "text");
             
-            settingRepository.save(setting);
+            Setting saved = settingRepository.save(setting);
+            eventPublisher.publishEvent(EntityChangedEvent.saved(EntityType.SETTING, saved.getId()));
             log.info("Saved setting: {} = {}", key, value);
             
         } catch (Exception e) {
@@ -180,6 +187,7 @@ public class SettingService {
                 }
                 
                 settingRepository.delete(setting);
+                eventPublisher.publishEvent(EntityChangedEvent.deleted(EntityType.SETTING, setting.getId()));
                 log.info("Deleted setting: {}", key);
                 return true;
             }
@@ -0,0 +1,88 @@
+package org.utj.asman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.utj.asman.event.EntityChangedEvent;
+import org.utj.asman.repository.FacilityRepository;
+import org.utj.asman.repository.UserRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory counters for the admin dashboard: users, facilities and assets.
+ *
+ * User and facility counts are seeded with COUNT queries at startup and re-counted on
+ * EntityChangedEvent (a save may be a create or an update). Until warm-up has finished,
+ * reads fall back to COUNT queries.
+ *
+ * Asset counts come from AssetRollupService, which keeps them current from AssetChangedEvent.
+ */
+@Service
+public class StatisticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatisticsService.class);
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AssetRollupService rollupService;
+
+    private final AtomicLong userCount = new AtomicLong();
+    private final AtomicLong facilityCount = new AtomicLong();
+
+    private volatile boolean warmed = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            userCount.set(userRepository.count());
+            facilityCount.set(facilityRepository.count());
+
+            warmed = true;
+            log.info("Statistics warmed in {} ms: {} users, {} facilities",
+                    System.currentTimeMillis() - start, userCount.get(), facilityCount.get());
+        } catch (Exception e) {
+            log.error("Could not warm statistics, falling back to database counts", e);
+        }
+    }
+
+    public long getUserCount() {
+        return warmed ? userCount.get() : userRepository.count();
+    }
+
+    public long getFacilityCount() {
+        return warmed ? facilityCount.get() : facilityRepository.count();
+    }
+
+    public long getAssetCount() {
+        return rollupService.getTotalAssets();
+    }
+
+    public boolean isWarmed() {
+        return warmed && rollupService.isWarmed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case USER:
+                userCount.set(userRepository.count());
+                break;
+            case FACILITY:
+                facilityCount.set(facilityRepository.count());
+                break;
+            default:
+                break;
+        }
+    }
+}
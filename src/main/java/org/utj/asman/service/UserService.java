@@ -1,23 +1,46 @@
 package org.utj.asman.service;
 
+import org.utj.asman.dto.DataTablePageDto;
+import org.utj.asman.dto.UserRowDto;
+import org.utj.asman.event.EntityChangedEvent;
 import org.utj.asman.model.User;
 import org.utj.asman.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.utj.asman.util.DataTableRequest;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    // User table columns that can be sorted, mapped to entity properties
+    private static final Map<String, String> TABLE_SORTS = new HashMap<String, String>();
+
+    static {
+        TABLE_SORTS.put("id", "id");
+        TABLE_SORTS.put("username", "username");
+        TABLE_SORTS.put("name", "name");
+        TABLE_SORTS.put("role", "role");
+        TABLE_SORTS.put("enabled", "enabled");
+    }
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Retrieves all users.
      */
@@ -25,6 +48,17 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * One page of the admin user table (DataTables server-side protocol), without password hashes.
+     */
+    @Transactional(readOnly = true)
+    public DataTablePageDto<UserRowDto> getUserTable(DataTableRequest request) {
+        long total = userRepository.count();
+        Page<UserRowDto> page = userRepository.searchRows(request.getSearchPattern(),
+                request.toPageable(TABLE_SORTS, "id", false));
+        return new DataTablePageDto<UserRowDto>(request.getDraw(), total, page.getTotalElements(), page.getContent());
+    }
+
     /**
      * Retrieves a user by ID.
      */
@@ -64,7 +98,9 @@ public class UserService {
             user.setEnabled(true);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(EntityChangedEvent.EntityType.USER, saved.getId()));
+        return saved;
     }
 
     /**
@@ -72,5 +108,6 @@ public class UserService {
      */
     public void deleteById(Long id) {
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(EntityChangedEvent.EntityType.USER, id));
     }
 }
\ No newline at end of file
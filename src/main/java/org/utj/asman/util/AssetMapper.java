@@ -0,0 +1,68 @@
+package org.utj.asman.util;
+
+import org.springframework.stereotype.Component;
+import org.utj.asman.dto.AssetSummaryDto;
+import org.utj.asman.model.AssetRecord;
+import org.utj.asman.model.CpuSpecification;
+import org.utj.asman.model.Facility;
+
+/**
+ * Mapper class for converting AssetRecord entities to flat DTOs
+ */
+@Component
+public class AssetMapper {
+
+    /**
+     * Convert AssetRecord entity to AssetSummaryDto
+     * Only reads the facility and CPU specification fields the summary needs
+     *
+     * @param asset The asset entity (can be null)
+     * @return AssetSummaryDto, or null if input is null
+     */
+    public AssetSummaryDto toSummaryDto(AssetRecord asset) {
+        if (asset == null) {
+            return null;
+        }
+
+        AssetSummaryDto dto = new AssetSummaryDto();
+        dto.setId(asset.getId());
+
+        Facility facility = asset.getFacility();
+        if (facility != null) {
+            dto.setFacilityId(facility.getId());
+            dto.setFacilityName(facility.getFacilityName());
+            dto.setMflCode(facility.getMflCode());
+        }
+
+        CpuSpecification spec = asset.getCpuSpecification();
+        if (spec != null) {
+            dto.setCpuSpecId(spec.getId());
+            dto.setCpuManufacturer(spec.getManufacturer());
+            dto.setCpuModel(spec.getModel());
+        }
+
+        dto.setCpuSerial(asset.getCpuSerial());
+        dto.setMonitorSerial(asset.getMonitorSerial());
+        dto.setMonitorModel(asset.getMonitorModel());
+        dto.setUpsSerial(asset.getUpsSerial());
+        dto.setUpsModel(asset.getUpsModel());
+        dto.setAssetTag(asset.getAssetTag());
+        dto.setAllocationDate(asset.getAllocationDate());
+
+        return dto;
+    }
+
+    /**
+     * Copy of an asset summary moved to another facility
+     *
+     * @param summary The asset summary before the move
+     * @param facility The new facility
+     * @return A new AssetSummaryDto with the facility fields replaced
+     */
+    public AssetSummaryDto withFacility(AssetSummaryDto summary, Facility facility) {
+        return new AssetSummaryDto(summary.getId(), facility.getId(), facility.getFacilityName(), facility.getMflCode(),
+                summary.getCpuSpecId(), summary.getCpuManufacturer(), summary.getCpuModel(),
+                summary.getCpuSerial(), summary.getMonitorSerial(), summary.getMonitorModel(),
+                summary.getUpsSerial(), summary.getUpsModel(), summary.getAssetTag(), summary.getAllocationDate());
+    }
+}
@@ -0,0 +1,64 @@
+package org.utj.asman.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 style parser for a single CSV line.
+ * Supports quoted fields, escaped quotes ("") and commas inside quotes.
+ * Fields spanning multiple lines are not supported - imports are expected
+ * to contain one record per line.
+ */
+public final class CsvLineParser {
+
+    private CsvLineParser() {
+    }
+
+    /**
+     * Splits a CSV line into trimmed field values.
+     *
+     * @param line a single line of CSV text (may be null)
+     * @return the field values; empty list for a null or blank line
+     */
+    public static List<String> parse(String line) {
+        List<String> fields = new ArrayList<String>();
+        if (line == null || line.trim().isEmpty()) {
+            return fields;
+        }
+
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (inQuotes) {
+                if (c == '"') {
+                    // Escaped quote inside a quoted field
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+
+        // Strip a UTF-8 byte order mark left on the first header column by some spreadsheet tools
+        if (!fields.isEmpty() && fields.get(0).startsWith("\uFEFF")) {
+            fields.set(0, fields.get(0).substring(1));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,117 @@
+package org.utj.asman.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paging, sorting and search parameters of a DataTables server-side request
+ * (draw, start, length, search[value], order[0][column], order[0][dir], columns[i][data]).
+ * Shared by every admin table so each one only declares which columns it can sort on.
+ */
+public class DataTableRequest {
+
+    public static final int DEFAULT_LENGTH = 25;
+    public static final int MAX_LENGTH = 500;
+
+    private final int draw;
+    private final int start;
+    private final int length;
+    private final String search;
+
+    // columns[i][data] of the first order entry (null when the client sent no ordering)
+    private final String orderColumn;
+    private final boolean descending;
+
+    public DataTableRequest(int draw, int start, int length, String search, String orderColumn, boolean descending) {
+        this.draw = draw;
+        this.start = Math.max(start, 0);
+        // length = -1 is the "All" entry of the page length menu; capped like any other size
+        this.length = length <= 0 ? (length < 0 ? MAX_LENGTH : DEFAULT_LENGTH) : Math.min(length, MAX_LENGTH);
+        this.search = (search == null || search.trim().isEmpty()) ? null : search.trim();
+        this.orderColumn = orderColumn;
+        this.descending = descending;
+    }
+
+    /**
+     * Parses the raw query parameters sent by DataTables.
+     */
+    public static DataTableRequest from(Map<String, String> params) {
+        String orderColumn = null;
+        String orderIndex = params.get("order[0][column]");
+        if (orderIndex != null) {
+            orderColumn = params.get("columns[" + orderIndex + "][data]");
+        }
+        return new DataTableRequest(
+                parseInt(params.get("draw"), 0),
+                parseInt(params.get("start"), 0),
+                parseInt(params.get("length"), DEFAULT_LENGTH),
+                params.get("search[value]"),
+                orderColumn,
+                "desc".equalsIgnoreCase(params.get("order[0][dir]")));
+    }
+
+    public int getDraw() {
+        return draw;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    /**
+     * The search box value as a lower-case LIKE pattern ("%term%"), or null when nothing was typed.
+     */
+    public String getSearchPattern() {
+        return search == null ? null : "%" + search.toLowerCase(Locale.ROOT) + "%";
+    }
+
+    /**
+     * Builds the page request for this draw.
+     *
+     * @param sortable Column data names the table can sort on, mapped to query properties
+     * @param defaultProperty Query property used when the client sent no ordering
+     * @param defaultDescending Direction of the default ordering
+     * @throws IllegalArgumentException if the client asked to sort on a column that is not sortable
+     */
+    public Pageable toPageable(Map<String, String> sortable, String defaultProperty, boolean defaultDescending) {
+        String property = defaultProperty;
+        boolean desc = defaultDescending;
+        if (orderColumn != null) {
+            property = sortable.get(orderColumn);
+            if (property == null) {
+                throw new IllegalArgumentException("Unsupported sort column: " + orderColumn);
+            }
+            desc = descending;
+        }
+
+        Sort sort = Sort.by(desc ? Sort.Direction.DESC : Sort.Direction.ASC, property);
+        if (!"id".equals(property)) {
+            // ID as tie-breaker keeps pages stable when sort values repeat
+            sort = sort.and(Sort.by("id"));
+        }
+        return PageRequest.of(start / length, length, sort);
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.utj.asman.util;
 import org.springframework.stereotype.Component;
 import org.utj.asman.dto.FacilityDto;
 import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.dto.FacilityRowDto;
 import org.utj.asman.model.Facility;
 import org.utj.asman.model.County;
 
@@ -58,6 +59,29 @@ public class FacilityMapper {
         return builder.build();
     }
 
+    /**
+     * Convert a FacilityRowDto projection to FacilityResponseDto
+     * Applies the same defaults as the entity mapping, without touching any entity
+     *
+     * @param row The projected row (can be null)
+     * @return FacilityResponseDto with safe default values, or null if input is null
+     */
+    public FacilityResponseDto toResponseDto(FacilityRowDto row) {
+        if (row == null) {
+            return null;
+        }
+
+        return FacilityResponseDto.builder()
+                .id(row.getId())
+                .facilityName(row.getFacilityName() != null ? row.getFacilityName() : "")
+                .mflCode(row.getMflCode() != null ? row.getMflCode() : "")
+                .countyId(row.getCountyId())
+                .countyName(row.getCountyName() != null ? row.getCountyName() : "Not Assigned")
+                .countyCode(row.getCountyCode() != null ? row.getCountyCode() : "N/A")
+                .createdAt(row.getCreatedAt() != null ? row.getCreatedAt().format(DATE_FORMATTER) : "")
+                .build();
+    }
+
     /**
      * Convert FacilityDto to Facility entity (for creating new facilities)
      * 
@@ -1,12 +1,8 @@
 package org.utj.asman.util;
 
-import org.xhtmlrenderer.pdf.ITextRenderer;
-import java.io.ByteArrayOutputStream;
-
 /**
  * Simple PDF generator that converts an HTML string to a PDF byte array.
- * Uses Flying Saucer (ITextRenderer) which is already on the classpath via the
- * {@code flying-saucer-pdf} dependency.
+ * Delegates to the shared {@link PdfRenderingEngine}.
  */
 public class PdfGenerator {
 
@@ -18,16 +14,6 @@ public class PdfGenerator {
      * @throws Exception if rendering fails
      */
     public static byte[] generatePdfFromHtml(String html) throws Exception {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            ITextRenderer renderer = new ITextRenderer();
-            // Flying Saucer expects a base URL for resolving relative resources (CSS,
-            // images)
-            // Using "" works for classpath resources that are embedded directly in the
-            // HTML.
-            renderer.setDocumentFromString(html);
-            renderer.layout();
-            renderer.createPDF(os);
-            return os.toByteArray();
-        }
+        return PdfRenderingEngine.getInstance().render(html);
     }
 }
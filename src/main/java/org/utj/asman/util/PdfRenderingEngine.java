@@ -0,0 +1,461 @@
+package org.utj.asman.util;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Image;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfImportedPage;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xhtmlrenderer.pdf.ITextFSImage;
+import org.xhtmlrenderer.pdf.ITextOutputDevice;
+import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.xhtmlrenderer.pdf.ITextUserAgent;
+import org.xhtmlrenderer.resource.CSSResource;
+import org.xhtmlrenderer.resource.ImageResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The single HTML-to-PDF engine used by every PDF renderer in the application.
+ *
+ * Flying Saucer renderers are not thread-safe and cheap to create, so each render still gets its own
+ * {@link ITextRenderer}. What is expensive - decoding logos and reading stylesheets - is
+ * done once here and shared by all renders:
+ * - images and stylesheets are cached in memory by resolved URI, and re-read when a local file changes
+ * - {@link #warmUp()} renders a small document so class loading and the default stylesheet parse are
+ *   paid at startup rather than by the first user.
+ *
+ * Large documents can be split and rendered in parallel with {@link #renderMerged}.
+ */
+public final class PdfRenderingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderingEngine.class);
+
+    // Logos and stylesheets are a handful of files; the caps only guard against unbounded growth
+    private static final int MAX_CACHED_IMAGES = 64;
+    private static final int MAX_CACHED_STYLESHEETS = 32;
+
+    // Parallel renders across all callers; each part holds a full Flying Saucer layout in memory
+    private static final int MERGE_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final String WARM_UP_HTML = "<html><head><style>"
+            + "body { font-family: Helvetica, sans-serif; font-size: 10pt; } "
+            + "table { width: 100%; border-collapse: collapse; } td { border: 1px solid #000; }"
+            + "</style></head><body><h1>Warm-up</h1><table><tr><td>a</td><td><b>b</b></td></tr></table>"
+            + "</body></html>";
+
+    // Declared after the constants it depends on, which are initialised in order
+    private static final PdfRenderingEngine INSTANCE = new PdfRenderingEngine();
+
+    private final Map<String, CachedResource<Image>> images = new ConcurrentHashMap<>();
+    private final Map<String, CachedResource<byte[]>> stylesheets = new ConcurrentHashMap<>();
+
+    private final ForkJoinPool mergePool = new ForkJoinPool(MERGE_PARALLELISM);
+
+    private volatile boolean warmedUp;
+
+    private PdfRenderingEngine() {
+    }
+
+    public static PdfRenderingEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Renders a complete XHTML document to PDF, writing it to the given stream.
+     */
+    public void render(String html, OutputStream outputStream) throws DocumentException {
+        render(html, outputStream, null);
+    }
+
+    /**
+     * Renders a complete XHTML document to PDF, reporting each page to the listener as it is written.
+     */
+    public void render(String html, OutputStream outputStream, ProgressListener listener) throws DocumentException {
+        ITextRenderer renderer = newRenderer(listener);
+        renderer.setDocumentFromString(html);
+        renderer.layout();
+        if (listener != null) {
+            ProgressOutputDevice device = (ProgressOutputDevice) renderer.getOutputDevice();
+            device.pageCount = renderer.getRootBox().getLayer().getPages().size();
+            listener.pageWritten(0, device.pageCount);
+        }
+        renderer.createPDF(outputStream);
+    }
+
+    /**
+     * Renders a complete XHTML document to a PDF byte array.
+     */
+    public byte[] render(String html) throws DocumentException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render(html, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Renders several XHTML documents in parallel and writes them to the stream as one PDF, in list order.
+     *
+     * Each document is rendered to its own file in workDirectory on a bounded fork-join pool shared by all
+     * callers, then the pages are copied into the output. Page numbers that span the whole result can't come
+     * from CSS counters (they restart in every document), so the optional stamper draws them onto the merged pages.
+     *
+     * @param workDirectory Where the parts are written; they are always deleted before this method returns
+     */
+    public void renderMerged(List<String> documents, Path workDirectory, OutputStream outputStream,
+            ProgressListener listener, PageStamper stamper) throws DocumentException, IOException {
+        MergedProgress progress = listener == null ? null : new MergedProgress(documents.size(), listener);
+        // Part files are chosen up front, so cleanup never depends on what a task returned
+        List<Path> files = new ArrayList<>(documents.size());
+        List<ForkJoinTask<Void>> parts = new ArrayList<>(documents.size());
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                String html = documents.get(i);
+                ProgressListener partListener = progress == null ? null : progress.forPart(i);
+                Path file = Files.createTempFile(workDirectory, "part-", ".pdf");
+                files.add(file);
+                parts.add(mergePool.submit(() -> {
+                    if (!failed.get()) {
+                        try {
+                            renderToFile(html, file, partListener);
+                        } catch (DocumentException | IOException | RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (ForkJoinTask<Void> part : parts) {
+                join(part);
+            }
+            merge(files, outputStream, stamper);
+        } catch (DocumentException | IOException | RuntimeException e) {
+            failed.set(true);
+            throw e;
+        } finally {
+            // Parts not started yet see the flag and skip rendering; running ones are waited for
+            for (ForkJoinTask<Void> part : parts) {
+                part.quietlyJoin();
+            }
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Renders a small throw-away document once. Safe to call more than once.
+     */
+    public void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            render(WARM_UP_HTML, new ByteArrayOutputStream(), null);
+            warmedUp = true;
+            log.info("PDF rendering engine warmed up in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("PDF rendering engine warm-up failed", e);
+        }
+    }
+
+    private void renderToFile(String html, Path file, ProgressListener listener) throws DocumentException, IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            render(html, out, listener);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary PDF part {}", file, e);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> part) throws DocumentException, IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering PDF", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DocumentException) {
+                throw (DocumentException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new DocumentException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+        }
+    }
+
+    private static void merge(List<Path> files, OutputStream outputStream, PageStamper stamper)
+            throws DocumentException, IOException {
+        int pageCount = 0;
+        for (Path file : files) {
+            // Partial read: only the page tree is loaded
+            PdfReader reader = new PdfReader(new RandomAccessFileOrArray(file.toString(), false, true), null);
+            pageCount += reader.getNumberOfPages();
+            reader.close();
+        }
+
+        Document document = new Document();
+        PdfCopy copy = new PdfCopy(document, outputStream);
+        document.open();
+        int pageNumber = 0;
+        for (Path file : files) {
+            // Fully read, one part at a time: a partial reader would copy the page from disk and drop the stamp
+            PdfReader reader = new PdfReader(file.toString());
+            try {
+                for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                    PdfImportedPage page = copy.getImportedPage(reader, i);
+                    pageNumber++;
+                    if (stamper != null) {
+                        PdfCopy.PageStamp stamp = copy.createPageStamp(page);
+                        stamper.stamp(stamp.getOverContent(), reader.getPageSizeWithRotation(i), pageNumber, pageCount);
+                        stamp.alterContents();
+                    }
+                    copy.addPage(page);
+                }
+                copy.freeReader(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        document.close();
+    }
+
+    private ITextRenderer newRenderer(ProgressListener listener) {
+        // The user agent has to be passed in at construction: the renderer hands it to its
+        // stylesheet loader as well as to the shared context.
+        ITextOutputDevice outputDevice = listener == null
+                ? new ITextOutputDevice(ITextRenderer.DEFAULT_DOTS_PER_POINT)
+                : new ProgressOutputDevice(listener);
+        return new ITextRenderer(ITextRenderer.DEFAULT_DOTS_PER_POINT,
+                ITextRenderer.DEFAULT_DOTS_PER_PIXEL, outputDevice, new CachingUserAgent(outputDevice));
+    }
+
+    /**
+     * Change stamp for a cacheable URI, or null when the URI should not be cached.
+     * Local files are keyed by size and modification time so a replaced logo is picked up;
+     * classpath resources never change while the application runs.
+     */
+    private static String stampFor(String uri) {
+        if (uri == null || uri.startsWith("data:")) {
+            return null;
+        }
+        if (uri.startsWith("file:")) {
+            try {
+                File file = new File(URI.create(uri));
+                return file.isFile() ? file.length() + ":" + file.lastModified() : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return uri.startsWith("jar:") || uri.startsWith("classpath:") ? "" : null;
+    }
+
+    private static <T> void put(Map<String, CachedResource<T>> cache, int maxEntries, String uri, String stamp, T value) {
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        cache.put(uri, new CachedResource<>(stamp, value));
+    }
+
+    /**
+     * Writes a prepared document. Rendering happens when write() is called, not when the writer is built.
+     */
+    public interface PdfWriter {
+        void write(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Receives progress while a document is written. Called on the rendering thread.
+     */
+    public interface ProgressListener {
+        /**
+         * Called once with pagesDone = 0 when layout has finished, then after each page is written.
+         */
+        void pageWritten(int pagesDone, int pageCount);
+    }
+
+    /**
+     * Draws on a merged page, e.g. a "Page x of y" footer.
+     */
+    public interface PageStamper {
+        void stamp(PdfContentByte canvas, Rectangle pageSize, int pageNumber, int pageCount);
+    }
+
+    /**
+     * Combines the progress of documents rendered in parallel into one page count.
+     * Until every document has been laid out, the total extrapolates from the ones that have.
+     */
+    private static class MergedProgress {
+        private final ProgressListener listener;
+        private final int[] pageCounts;
+        private int pagesDone;
+
+        MergedProgress(int parts, ProgressListener listener) {
+            this.listener = listener;
+            this.pageCounts = new int[parts];
+            Arrays.fill(pageCounts, -1);
+        }
+
+        ProgressListener forPart(int part) {
+            return (done, count) -> {
+                if (done == 0) {
+                    laidOut(part, count);
+                } else {
+                    pageWritten();
+                }
+            };
+        }
+
+        private synchronized void laidOut(int part, int pageCount) {
+            pageCounts[part] = pageCount;
+            report();
+        }
+
+        private synchronized void pageWritten() {
+            pagesDone++;
+            report();
+        }
+
+        private void report() {
+            int known = 0;
+            int laidOut = 0;
+            for (int count : pageCounts) {
+                if (count >= 0) {
+                    known += count;
+                    laidOut++;
+                }
+            }
+            int estimate = laidOut == 0 ? 0 : known + (pageCounts.length - laidOut) * known / laidOut;
+            listener.pageWritten(pagesDone, estimate);
+        }
+    }
+
+    /**
+     * Output device that reports each finished page.
+     */
+    private static class ProgressOutputDevice extends ITextOutputDevice {
+        private final ProgressListener listener;
+        private int pagesDone;
+        private int pageCount;
+
+        ProgressOutputDevice(ProgressListener listener) {
+            super(ITextRenderer.DEFAULT_DOTS_PER_POINT);
+            this.listener = listener;
+        }
+
+        @Override
+        public void finishPage() {
+            super.finishPage();
+            listener.pageWritten(++pagesDone, pageCount);
+        }
+    }
+
+    /**
+     * Per-render user agent backed by the engine's shared caches.
+     */
+    private class CachingUserAgent extends ITextUserAgent {
+
+        CachingUserAgent(ITextOutputDevice outputDevice) {
+            super(outputDevice);
+        }
+
+        @Override
+        public ImageResource getImageResource(String uri) {
+            String resolved = resolveURI(uri);
+            String stamp = stampFor(resolved);
+            if (stamp == null) {
+                return super.getImageResource(uri);
+            }
+
+            CachedResource<Image> cached = images.get(resolved);
+            if (cached == null || !cached.stamp.equals(stamp)) {
+                ImageResource loaded = super.getImageResource(uri);
+                if (!(loaded.getImage() instanceof ITextFSImage)) {
+                    return loaded;
+                }
+                cached = new CachedResource<>(stamp, ((ITextFSImage) loaded.getImage()).getImage());
+                put(images, MAX_CACHED_IMAGES, resolved, stamp, cached.value);
+            }
+            // Layout scales the image in place to its CSS size, so every render gets its own copy
+            // of the decoded image rather than the shared instance.
+            return new ImageResource(resolved, new ITextFSImage(Image.getInstance(cached.value)));
+        }
+
+        @Override
+        public CSSResource getCSSResource(String uri) {
+            String resolved = resolveURI(uri);
+            String stamp = stampFor(resolved);
+            if (stamp == null) {
+                return super.getCSSResource(uri);
+            }
+
+            CachedResource<byte[]> cached = stylesheets.get(resolved);
+            if (cached == null || !cached.stamp.equals(stamp)) {
+                byte[] bytes = read(resolved);
+                if (bytes == null) {
+                    return super.getCSSResource(uri);
+                }
+                cached = new CachedResource<>(stamp, bytes);
+                put(stylesheets, MAX_CACHED_STYLESHEETS, resolved, stamp, bytes);
+            }
+            return new CSSResource(new ByteArrayInputStream(cached.value));
+        }
+
+        private byte[] read(String uri) {
+            try (InputStream in = openStream(uri)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                log.warn("Could not read stylesheet {}", uri, e);
+                return null;
+            }
+        }
+    }
+
+    private static class CachedResource<T> {
+        private final String stamp;
+        private final T value;
+
+        CachedResource(String stamp, T value) {
+            this.stamp = stamp;
+            this.value = value;
+        }
+    }
+}
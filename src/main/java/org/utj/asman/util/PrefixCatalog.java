@@ -0,0 +1,97 @@
+package org.utj.asman.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe, sorted catalog of names with popularity counts, used for prefix auto-complete.
+ *
+ * Names are stored in a skip list ordered by their lower-case form, so a prefix lookup is a
+ * range scan over exactly the matching names, and the top-K most popular matches are picked
+ * with a bounded heap. Matching is case-insensitive; the first spelling seen is the one returned.
+ */
+public class PrefixCatalog {
+
+    // Ranking: most popular first, then alphabetical
+    private static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            if (a.count != b.count) {
+                return a.count > b.count ? -1 : 1;
+            }
+            return a.name.compareToIgnoreCase(b.name);
+        }
+    };
+
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<String, Entry>();
+
+    /**
+     * Adjust the popularity of a name. The name is dropped once its count reaches zero.
+     */
+    public void adjust(final String name, final long delta) {
+        if (name == null || name.trim().isEmpty() || delta == 0) {
+            return;
+        }
+        final String display = name.trim();
+        entries.compute(key(display), (k, existing) -> {
+            long count = (existing != null ? existing.count : 0) + delta;
+            if (count <= 0) {
+                return null;
+            }
+            return new Entry(existing != null ? existing.name : display, count);
+        });
+    }
+
+    /**
+     * Returns up to 'limit' names starting with the given prefix, most popular first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String from = key(prefix.trim());
+        NavigableMap<String, Entry> range = entries.subMap(from, true, from + Character.MAX_VALUE, false);
+
+        // Min-heap of the best 'limit' entries seen so far (worst at the head)
+        PriorityQueue<Entry> best = new PriorityQueue<Entry>(limit + 1, RANKING.reversed());
+        for (Map.Entry<String, Entry> e : range.entrySet()) {
+            best.offer(e.getValue());
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Entry> ranked = new ArrayList<Entry>(best);
+        ranked.sort(RANKING);
+        List<String> names = new ArrayList<String>(ranked.size());
+        for (Entry entry : ranked) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        final String name;
+        final long count;
+
+        Entry(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+}
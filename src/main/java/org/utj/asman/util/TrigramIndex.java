@@ -0,0 +1,178 @@
+package org.utj.asman.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe inverted index from character trigrams to integer document IDs.
+ *
+ * Each posting list is a sorted int array, so inserting increasing IDs is an append
+ * and a query is an intersection of the (usually short) lists of its trigrams.
+ * Candidates are a superset of the substring matches - callers verify them.
+ * Text is indexed case-insensitively.
+ *
+ * A document may have several texts (e.g. several serial numbers). Always add and remove
+ * all texts of a document together, since they can share trigrams.
+ */
+public class TrigramIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Posting> postings = new HashMap<String, Posting>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(int id, String... texts) {
+        Set<String> grams = trigrams(texts);
+        if (grams.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String gram : grams) {
+                Posting posting = postings.get(gram);
+                if (posting == null) {
+                    posting = new Posting();
+                    postings.put(gram, posting);
+                }
+                posting.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id, String... texts) {
+        Set<String> grams = trigrams(texts);
+        if (grams.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String gram : grams) {
+                Posting posting = postings.get(gram);
+                if (posting != null && posting.remove(id) && posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of documents containing every trigram of the query, in ascending order.
+     *
+     * @return candidate IDs, or null when the query is shorter than a trigram
+     *         (the index cannot narrow it down and the caller has to scan)
+     */
+    public int[] candidates(String query) {
+        Set<String> grams = trigrams(query);
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Posting> lists = new ArrayList<Posting>(grams.size());
+            for (String gram : grams) {
+                Posting posting = postings.get(gram);
+                if (posting == null) {
+                    return new int[0];
+                }
+                lists.add(posting);
+            }
+            // Intersect starting from the shortest list
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            int length = result.length;
+            for (int i = 1; i < lists.size() && length > 0; i++) {
+                Posting other = lists.get(i);
+                int kept = 0;
+                for (int j = 0; j < length; j++) {
+                    if (Arrays.binarySearch(other.ids, 0, other.size, result[j]) >= 0) {
+                        result[kept++] = result[j];
+                    }
+                }
+                length = kept;
+            }
+            return Arrays.copyOf(result, length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int gramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct lower-case trigrams of the given texts; empty if every text is shorter than a trigram.
+     */
+    public static Set<String> trigrams(String... texts) {
+        Set<String> grams = new LinkedHashSet<String>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String normalized = text.trim().toLowerCase(Locale.ROOT);
+            for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+                grams.add(normalized.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Growable sorted int array.
+     */
+    private static final class Posting {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void add(int id) {
+            if (size == 0 || id > ids[size - 1]) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insertAt = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+}
@@ -25,6 +25,12 @@
         return window.APP_CSRF_HEADER || 'X-CSRF-TOKEN';
     }
 
+    // Hidden CSRF input for forms built client-side (th:action adds it to server-rendered forms)
+    function csrfField() {
+        return '<input type="hidden" name="' + escapeHtml(window.APP_CSRF_PARAMETER || '_csrf')
+            + '" value="' + escapeHtml(getCsrfToken()) + '">';
+    }
+
     function ajaxGet(url, options = {}) {
         const headers = {
             'Content-Type': 'application/json',
@@ -98,15 +104,42 @@
         });
     }
 
+    function escapeHtml(value) {
+        if (value === null || value === undefined) return '';
+        return String(value)
+            .replace(/&/g, '&amp;')
+            .replace(/</g, '&lt;')
+            .replace(/>/g, '&gt;')
+            .replace(/"/g, '&quot;')
+            .replace(/'/g, '&#39;');
+    }
+
+    /**
+     * DataTables "ajax" option for the server-side admin tables.
+     * extraData may be a function returning additional query parameters (e.g. the current filters).
+     */
+    function tableSource(path, extraData) {
+        return {
+            url: buildUrl(path),
+            type: 'GET',
+            data: function (params) {
+                return extraData ? Object.assign(params, extraData()) : params;
+            }
+        };
+    }
+
     // Expose utilities
     window.AppUtils = {
         getContextPath,
         buildUrl,
         getCsrfToken,
         getCsrfHeader,
+        csrfField,
         ajaxGet,
         ajaxPost,
-        ajaxDelete
+        ajaxDelete,
+        escapeHtml,
+        tableSource
     };
 
     // Backward compatibility
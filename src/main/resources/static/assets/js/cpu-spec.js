@@ -46,8 +46,66 @@ $(document).ready(function() {
         });
     });
     
-    // Handle edit button click
-    $('.edit-spec-btn').on('click', function() {
+    // Specification table - rows, paging, sorting and search are served by /admin/cpu-specs/table
+    if ($('#cpuSpecTable').length) {
+        $('#cpuSpecTable').DataTable({
+            serverSide: true,
+            processing: true,
+            ajax: AppUtils.tableSource('admin/cpu-specs/table'),
+            searchDelay: 400,
+            pageLength: 25,
+            lengthMenu: [10, 25, 50, 100],
+            order: [[0, 'asc']],
+            columns: [
+                { data: 'id', className: 'd-none d-sm-table-cell' },
+                { data: 'manufacturer', render: $.fn.dataTable.render.text() },
+                { data: 'model', className: 'd-none d-md-table-cell fw-bold', render: $.fn.dataTable.render.text() },
+                { data: 'processor', className: 'd-none d-lg-table-cell', render: $.fn.dataTable.render.text() },
+                {
+                    data: 'memory',
+                    render: function(data) {
+                        return '<span class="badge bg-secondary">' + AppUtils.escapeHtml(data) + '</span>';
+                    }
+                },
+                { data: 'hardDisk', className: 'd-none d-lg-table-cell', render: $.fn.dataTable.render.text() },
+                {
+                    data: 'purchaseDate', className: 'd-none d-xl-table-cell',
+                    render: function(data) {
+                        // yyyy-MM-dd -> dd/MM/yyyy
+                        return data ? data.split('-').reverse().join('/') : '-';
+                    }
+                },
+                {
+                    data: 'supplier', className: 'd-none d-xl-table-cell',
+                    render: function(data) {
+                        return AppUtils.escapeHtml(data || '-');
+                    }
+                },
+                {
+                    data: 'id', orderable: false, searchable: false,
+                    render: function(data) {
+                        return '<button type="button" class="btn btn-sm btn-outline-primary me-1 edit-spec-btn"'
+                            + ' data-id="' + data + '" title="Edit"><i class="fa-solid fa-edit"></i></button>'
+                            + '<form action="' + AppUtils.buildUrl('admin/cpu-specs/delete/' + data) + '"'
+                            + ' method="post" class="d-inline delete-spec-form">' + AppUtils.csrfField()
+                            + '<button type="submit" class="btn btn-sm btn-outline-danger" title="Delete">'
+                            + '<i class="fa-solid fa-trash"></i></button></form>';
+                    }
+                }
+            ],
+            language: {
+                search: '',
+                sLengthMenu: '_MENU_',
+                zeroRecords: 'No matching specifications found',
+                emptyTable: 'No specifications defined yet.'
+            }
+        });
+        $('#cpuSpecTable_filter input').addClass('form-control form-control-sm').attr('placeholder', 'Search...');
+        $('#cpuSpecTable_length').find('select').addClass('form-control form-control-sm px-3');
+    }
+
+    // Handle edit button click (delegated, since table rows are loaded on demand)
+    $(document).on('click', '.edit-spec-btn', function() {
         const specId = $(this).data('id');
         
         // Fetch specification data
@@ -98,8 +156,8 @@ $(document).ready(function() {
         });
     });
     
-    // Handle delete with SweetAlert
-    $('.delete-spec-form').on('submit', function(e) {
+    // Handle delete with SweetAlert (delegated, since table rows are loaded on demand)
+    $(document).on('submit', '.delete-spec-form', function(e) {
         e.preventDefault();
         const form = $(this);
         
@@ -113,7 +171,8 @@ $(document).ready(function() {
             confirmButtonText: 'Yes, delete it!'
         }).then((result) => {
             if (result.isConfirmed) {
-                form.off('submit').submit();
+                // Native submit does not re-trigger the jQuery handler
+                form[0].submit();
             }
         });
     });
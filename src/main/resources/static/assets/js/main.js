@@ -957,13 +957,14 @@
         // All Product Page Table
         //------------------------------------------------------------------------------------------------------------------
         if ($('#allProductTable').length) {
-            var dataTable = $('#allProductTable').DataTable({
+            // Pages that load rows on demand set window.allProductTableOptions (serverSide, ajax, columns)
+            var dataTable = $('#allProductTable').DataTable($.extend({
                 // scrollX: true,
                 "columnDefs": [{
                     "targets": 'no-sort',
                     "orderable": false
                 }]
-            });
+            }, window.allProductTableOptions || {}));
             $('#allProductTable_filter input').addClass('form-control').attr("placeholder", "Search...").addClass('form-control-sm');
             $('#allProductTable_length').prependTo('#productTableLength').find('select').addClass('form-control form-control-sm px-3');
             $('#allProductTable_filter').prependTo('#tableSearch');
@@ -0,0 +1,69 @@
+/**
+ * Background PDF jobs
+ * Links with a data-pdf-job attribute start a server-side job instead of rendering on the request,
+ * show its progress on the link and download the file when it is ready.
+ * The link's href stays as a fallback for when this script is not loaded.
+ */
+(function(window, $) {
+    'use strict';
+
+    const POLL_INTERVAL_MS = 1500;
+
+    function setProgress(link, job) {
+        let text = 'Queued...';
+        if (job.status === 'RUNNING') {
+            text = job.pageCount > 0
+                ? 'Rendering ' + job.percent + '% (' + job.pagesDone + '/' + job.pageCount + ' pages)'
+                : 'Preparing...';
+        }
+        link.html('<i class="fa-solid fa-spinner fa-spin"></i> ' + AppUtils.escapeHtml(text));
+    }
+
+    function finish(link, originalHtml) {
+        link.removeClass('disabled').removeData('pdfJobRunning').html(originalHtml);
+    }
+
+    function fail(link, originalHtml, message) {
+        finish(link, originalHtml);
+        Swal.fire({
+            title: 'Error!',
+            text: message || 'Failed to generate the PDF',
+            icon: 'error',
+            confirmButtonText: 'OK'
+        });
+    }
+
+    function poll(link, originalHtml, jobId) {
+        AppUtils.ajaxGet('admin/pdf/jobs/' + jobId)
+            .then(job => {
+                if (job.status === 'DONE') {
+                    finish(link, originalHtml);
+                    window.location.href = AppUtils.buildUrl('admin/pdf/jobs/' + jobId + '/download');
+                } else if (job.status === 'FAILED') {
+                    fail(link, originalHtml, job.error);
+                } else {
+                    setProgress(link, job);
+                    setTimeout(() => poll(link, originalHtml, jobId), POLL_INTERVAL_MS);
+                }
+            })
+            .catch(() => fail(link, originalHtml, 'The PDF job is no longer available'));
+    }
+
+    $(document).on('click', 'a[data-pdf-job]', function(e) {
+        e.preventDefault();
+        const link = $(this);
+        if (link.data('pdfJobRunning')) return;
+
+        const originalHtml = link.html();
+        link.data('pdfJobRunning', true).addClass('disabled');
+        link.html('<i class="fa-solid fa-spinner fa-spin"></i> Queued...');
+
+        AppUtils.ajaxPost(link.attr('data-pdf-job'), {})
+            .then(job => {
+                setProgress(link, job);
+                poll(link, originalHtml, job.id);
+            })
+            .catch(() => fail(link, originalHtml, 'Could not start the PDF job, please try again shortly'));
+    });
+
+})(window, jQuery);
@@ -0,0 +1,107 @@
+package org.utj.asman.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.util.AssetMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Timing harness: trigram-indexed search vs. the original JPQL LIKE query.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with:
+ *   mvn -B test -Dtest=AssetSearchBenchmark -Dbenchmark.rows=100000
+ *   mvn -B test -Dtest=AssetSearchBenchmark -Dbenchmark.rows=1000000 -DargLine=-Xmx3g
+ */
+@SpringBootTest
+class AssetSearchBenchmark {
+
+    private static final int FACILITIES = 500;
+    private static final int SPECS = 25;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private AssetSearchService searchService;
+
+    @Autowired
+    private AssetMapper assetMapper;
+
+    @Test
+    void compareWithJpqlSearch() {
+        int rows = Integer.getInteger("benchmark.rows", 100_000);
+        seed(rows);
+
+        long start = System.nanoTime();
+        searchService.warmUp();
+        System.out.printf("Index build: %d ms for %d assets%n", (System.nanoTime() - start) / 1_000_000, rows);
+
+        String[] queries = {
+                "cpu" + (rows / 2),      // one serial, exact
+                "facility 0042",         // one facility name
+                "model-07",              // one CPU model
+                "no-such-asset"          // no hit
+        };
+        System.out.printf("%-16s %10s %14s %14s%n", "query", "hits", "jpql (ms)", "index (ms)");
+        for (String q : queries) {
+            long hits = searchService.search(q, 0, 20).getTotal();
+            double jpql = time(() -> {
+                List<Object> page = new ArrayList<Object>();
+                assetRepository.searchAssets(q).forEach(asset -> page.add(assetMapper.toSummaryDto(asset)));
+                return page;
+            });
+            double index = time(() -> searchService.search(q, 0, 20));
+            System.out.printf("%-16s %10d %14.1f %14.1f%n", q, hits, jpql, index);
+        }
+    }
+
+    private void seed(int rows) {
+        jdbc.update("INSERT INTO counties (id, county_name, county_code) VALUES (1, 'Bench County', 'BC')");
+
+        List<Object[]> facilities = new ArrayList<Object[]>();
+        for (int i = 1; i <= FACILITIES; i++) {
+            facilities.add(new Object[]{i, String.format("Facility %04d", i), "MFL" + i});
+        }
+        jdbc.batchUpdate("INSERT INTO facilities (id, facility_name, mfl_code, county_id) VALUES (?, ?, ?, 1)", facilities);
+
+        List<Object[]> specs = new ArrayList<Object[]>();
+        for (int i = 1; i <= SPECS; i++) {
+            specs.add(new Object[]{i, String.format("Model-%02d", i), "Core " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO cpu_specifications (id, manufacturer, model, processor, memory, hard_disk) " +
+                "VALUES (?, 'Bench', ?, ?, '8 GB', '512 GB')", specs);
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<Object[]>(INSERT_BATCH);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, i % FACILITIES + 1, now, "CPU" + i, i % SPECS + 1, "MON" + i, "UPS" + i});
+            if (batch.size() == INSERT_BATCH || i == rows) {
+                jdbc.batchUpdate("INSERT INTO asset_records (id, facility_id, allocation_date, cpu_serial, cpu_spec_id, " +
+                        "monitor_serial, ups_serial) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Average of RUNS timed calls after one warm-up call, in milliseconds
+    private static double time(Supplier<?> call) {
+        call.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            call.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
@@ -0,0 +1,158 @@
+package org.utj.asman.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.utj.asman.dto.FacilityResponseDto;
+import org.utj.asman.model.AssetRecord;
+import org.utj.asman.model.County;
+import org.utj.asman.model.CpuSpecification;
+import org.utj.asman.model.Facility;
+import org.utj.asman.repository.AssetRecordRepository;
+import org.utj.asman.repository.CountyRepository;
+import org.utj.asman.repository.CpuSpecificationRepository;
+import org.utj.asman.repository.FacilityRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regression test for N+1 selects: the statement count of the asset list and PDF paths
+ * must not grow with the number of assets, facilities, counties or CPU specs.
+ *
+ * Every asset gets its own facility, county and CPU spec, which is the worst case for lazy loading.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QueryCountTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AssetRecordRepository assetRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private CountyRepository countyRepository;
+
+    @Autowired
+    private CpuSpecificationRepository cpuSpecRepository;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private FacilityService facilityService;
+
+    @Autowired
+    private EnhancedPdfService pdfService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assetRepository.deleteAllInBatch();
+        facilityRepository.deleteAllInBatch();
+        countyRepository.deleteAllInBatch();
+        cpuSpecRepository.deleteAllInBatch();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50})
+    void assetListUsesOneStatement(int n) throws Exception {
+        seed(n, false);
+
+        statistics.clear();
+        List<AssetRecord> assets = assetService.getAssetRecords(null);
+        objectMapper.writeValueAsString(assets);
+
+        assertEquals(n, assets.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50})
+    void facilityListUsesOneStatement(int n) {
+        seed(n, false);
+
+        statistics.clear();
+        List<FacilityResponseDto> facilities = facilityService.getAllFacilitiesDto();
+
+        assertEquals(n, facilities.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50})
+    void bulkAssignmentFormsUseThreeStatements(int n) {
+        Long facilityId = seed(n, true);
+
+        // Same lookups as PdfController: the facility, its assets with their relations, then the settings
+        statistics.clear();
+        facilityService.getFacilityDtoById(facilityId);
+        List<AssetRecord> assets = assetRepository.findWithRelationsByFacilityId(facilityId);
+        pdfService.prepareBulkAssignmentForms(assets);
+
+        assertEquals(n, assets.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Creates n assets, each with its own CPU spec, and each with its own facility and county
+     * unless sharedFacility is set.
+     *
+     * @return The ID of the last facility created
+     */
+    private Long seed(int n, boolean sharedFacility) {
+        Facility facility = null;
+        for (int i = 1; i <= n; i++) {
+            if (facility == null || !sharedFacility) {
+                County county = new County();
+                county.setCountyName("County " + i);
+                county.setCountyCode("C" + i);
+                county = countyRepository.save(county);
+
+                facility = new Facility();
+                facility.setFacilityName("Facility " + i);
+                facility.setMflCode("MFL" + i);
+                facility.setCounty(county);
+                facility = facilityRepository.save(facility);
+            }
+
+            CpuSpecification spec = new CpuSpecification();
+            spec.setManufacturer("Maker");
+            spec.setModel("Model " + i);
+            spec.setProcessor("Core " + i);
+            spec.setMemory("8 GB");
+            spec.setHardDisk("512 GB");
+            spec = cpuSpecRepository.save(spec);
+
+            AssetRecord asset = new AssetRecord();
+            asset.setFacility(facility);
+            asset.setCpuSpecification(spec);
+            asset.setCpuSerial("QC-CPU-" + i);
+            asset.setMonitorSerial("QC-MON-" + i);
+            asset.setUpsSerial("QC-UPS-" + i);
+            assetRepository.save(asset);
+        }
+        return facility.getId();
+    }
+}